@@ -1,8 +1,9 @@
 /**
  * This class defines the BSTNode, the building blocks of the binary search tree used
  * the MyBST and TreeCollection classes. The class contains a reference to the data inside
- * the node as well references to a right and left child node. There are methods in this
- * class to get and set these references.
+ * the node as well references to a right and left child node and to the parent node. Each
+ * node also records the height and the size of the subtree rooted at it, which MyBST uses 
+ * to keep the tree balanced and to answer rank queries. There are methods in this class to get and set these references.
  * 
  * @author Leila Mardoum
  * @version 4/22/17
@@ -14,6 +15,9 @@ public class BSTNode<E extends Comparable<E>> implements Comparable<BSTNode<E>>
 	private E data;
 	private BSTNode<E> left; //reference to left child
 	private BSTNode<E> right; //reference to right child
+	private BSTNode<E> parent; //reference to parent node (null for the root)
+	private int height = 1; //height of the subtree rooted at this node (a leaf has height 1)
+	private int size = 1; //number of nodes in the subtree rooted at this node
 	
 	/**
 	 * Constructor that takes an item as parameter and stores that item in a new node.
@@ -64,6 +68,60 @@ public class BSTNode<E extends Comparable<E>> implements Comparable<BSTNode<E>>
 		left = newLeft;
 	}
 	
+	/**
+	 * Returns the reference to the parent node
+	 * 
+	 * @return reference to the parent node, or null if this node is the root
+	 */
+	public BSTNode<E> getParent(){
+		return parent;
+	}
+	
+	/**
+	 * Sets parent reference to the node given in the parameter
+	 * 
+	 * @param newParent node that will become the new parent of this node
+	 */
+	public void setParent(BSTNode<E> newParent){
+		parent = newParent;
+	}
+	
+	/**
+	 * Returns the height of the subtree rooted at this node
+	 * 
+	 * @return height of the subtree rooted at this node (1 for a leaf)
+	 */
+	public int getHeight(){
+		return height;
+	}
+	
+	/**
+	 * Sets the height of the subtree rooted at this node
+	 * 
+	 * @param height new height of the subtree rooted at this node
+	 */
+	public void setHeight(int height){
+		this.height = height;
+	}
+	
+	/**
+	 * Returns the number of nodes in the subtree rooted at this node
+	 * 
+	 * @return number of nodes in the subtree rooted at this node (1 for a leaf)
+	 */
+	public int getSize(){
+		return size;
+	}
+	
+	/**
+	 * Sets the number of nodes in the subtree rooted at this node
+	 * 
+	 * @param size new number of nodes in the subtree rooted at this node
+	 */
+	public void setSize(int size){
+		this.size = size;
+	}
+	
 	/**
 	 * Returns item stored in this node
 	 * 
@@ -0,0 +1,303 @@
+/**
+ * This class hosts a main method that measures how long the main operations of the
+ * program take, so that changes that make them slower can be noticed. It times parsing
+ * csv lines into trees, MyBST.add and MyBST.contains next to java.util.TreeMap, and the
+ * species and borough queries of TreeCollection next to those of TreeList.
+ *
+ * The trees are generated with a fixed random seed, so every run measures the same data.
+ * Every benchmark is run for each combination of the dataset sizes and insertion orders
+ * given on the command line (random, sorted, or reversed), first a few times to warm up
+ * the JVM and then a few more times while being timed. The average and best time per
+ * operation are printed as one line for each benchmark. The same benchmarks are written
+ * for JMH in benchmarks/, which reuses generateLines and gives more reliable figures;
+ * this class is for a quick run without Maven.
+ *
+ * Usage: java Benchmark [size=10000,100000] [order=random,sorted,reversed]
+ * [warmup=3] [iterations=5]
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+import java.util.*;
+
+public class Benchmark {
+
+	//species names used for the generated trees
+	static final String[] SPECIES = {"London planetree", "honeylocust", "Callery pear",
+			"pin oak", "Norway maple", "littleleaf linden", "cherry", "Japanese zelkova", "ginkgo",
+			"Sophora", "red maple", "green ash", "American linden", "silver maple", "sweetgum",
+			"northern red oak", "silver linden", "American elm", "maple", "purple-leaf plum",
+			"swamp white oak", "crab apple", "Chinese elm", "eastern redcedar", "white oak"};
+	//borough names used for the generated trees
+	static final String[] BOROUGHS = {"Manhattan", "Bronx", "Brooklyn", "Queens", "Staten Island"};
+	//species names searched for by the query benchmarks
+	static final String[] QUERIES = {"oak", "maple", "linden", "a", "honeylocust", "redwood"};
+
+	//results of every timed operation end up here so that the JIT cannot skip the work
+	private static volatile long sink;
+
+	/**
+	 * Operation to be timed; returns a value that depends on the work done
+	 */
+	private interface Operation {
+		long run();
+	}
+
+	public static void main(String[] args) {
+		int[] sizes = {10000, 100000};
+		String[] orders = {"random", "sorted", "reversed"};
+		int warmup = 3;
+		int iterations = 5;
+
+		//read the parameters given on the command line
+		try {
+			for(String arg : args){
+				int equals = arg.indexOf('=');
+				String name = (equals < 0) ? arg : arg.substring(0, equals);
+				String value = arg.substring(equals + 1);
+				if(name.equals("size")){
+					String[] parts = value.split(",");
+					sizes = new int[parts.length];
+					for(int i = 0; i < parts.length; i++)
+						sizes[i] = Integer.parseInt(parts[i].trim());
+				} else if(name.equals("order")){
+					orders = value.split(",");
+					for(String order : orders){
+						if(!order.equals("random") && !order.equals("sorted") && !order.equals("reversed"))
+							throw new IllegalArgumentException("Unknown insertion order: " + order);
+					}
+				} else if(name.equals("warmup")){
+					warmup = Integer.parseInt(value);
+				} else if(name.equals("iterations")){
+					iterations = Integer.parseInt(value);
+				} else {
+					throw new IllegalArgumentException("Unknown parameter: " + arg);
+				}
+			}
+		} catch(IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage Error: java Benchmark [size=10000,100000] [order=random,sorted,reversed] [warmup=3] [iterations=5]");
+			System.exit(1);
+		}
+
+		System.out.printf("%-38s %9s %9s %14s %14s%n", "benchmark", "size", "order", "avg ns/op", "best ns/op");
+		for(int size : sizes){
+			for(String order : orders)
+				runAll(size, order, warmup, iterations);
+		}
+	}
+
+	/**
+	 * Runs every benchmark on one generated dataset
+	 *
+	 * @param size number of trees in the dataset
+	 * @param order order in which the trees are inserted
+	 * @param warmup number of untimed runs of each benchmark
+	 * @param iterations number of timed runs of each benchmark
+	 */
+	private static void runAll(final int size, String order, int warmup, int iterations){
+		final String[] lines = generateLines(size, order);
+		final List<Tree> trees = new ArrayList<Tree>(size);
+		for(String line : lines)
+			trees.add(TreeLoader.parseTree(line));
+
+		//trees are looked up in a different order from the one they were inserted in
+		final List<Tree> probes = new ArrayList<Tree>(trees);
+		Collections.shuffle(probes, new Random(size));
+
+		final MyBST<Tree> bst = new MyBST<Tree>();
+		final TreeMap<Tree, Tree> map = new TreeMap<Tree, Tree>();
+		final TreeCollection collection = new TreeCollection();
+		final TreeList list = new TreeList();
+		for(Tree t : trees){
+			bst.add(t);
+			map.put(t, t);
+			collection.add(t);
+			list.add(t);
+		}
+
+		measure("csv parse (splitCSVLine + Tree)", size, order, size, warmup, iterations, new Operation(){
+			public long run(){
+				long valid = 0;
+				for(String line : lines){
+					if(TreeLoader.parseTree(line) != null)
+						valid++;
+				}
+				return valid;
+			}
+		});
+		measure("MyBST.add", size, order, size, warmup, iterations, new Operation(){
+			public long run(){
+				MyBST<Tree> fresh = new MyBST<Tree>();
+				for(Tree t : trees)
+					fresh.add(t);
+				return fresh.size();
+			}
+		});
+		measure("TreeMap.put", size, order, size, warmup, iterations, new Operation(){
+			public long run(){
+				TreeMap<Tree, Tree> fresh = new TreeMap<Tree, Tree>();
+				for(Tree t : trees)
+					fresh.put(t, t);
+				return fresh.size();
+			}
+		});
+		measure("MyBST.contains", size, order, size, warmup, iterations, new Operation(){
+			public long run(){
+				long found = 0;
+				for(Tree t : probes){
+					if(bst.contains(t))
+						found++;
+				}
+				return found;
+			}
+		});
+		measure("TreeMap.containsKey", size, order, size, warmup, iterations, new Operation(){
+			public long run(){
+				long found = 0;
+				for(Tree t : probes){
+					if(map.containsKey(t))
+						found++;
+				}
+				return found;
+			}
+		});
+		measure("TreeCollection.getCountByTreeSpecies", size, order, QUERIES.length, warmup, iterations, new Operation(){
+			public long run(){
+				long total = 0;
+				for(String query : QUERIES)
+					total += collection.getCountByTreeSpecies(query);
+				return total;
+			}
+		});
+		measure("TreeList.getCountByTreeSpecies", size, order, QUERIES.length, warmup, iterations, new Operation(){
+			public long run(){
+				long total = 0;
+				for(String query : QUERIES)
+					total += list.getCountByTreeSpecies(query);
+				return total;
+			}
+		});
+		measure("TreeCollection.getMatchingSpecies", size, order, QUERIES.length, warmup, iterations, new Operation(){
+			public long run(){
+				long total = 0;
+				for(String query : QUERIES)
+					total += collection.getMatchingSpecies(query).size();
+				return total;
+			}
+		});
+		measure("TreeList.getMatchingSpecies", size, order, QUERIES.length, warmup, iterations, new Operation(){
+			public long run(){
+				long total = 0;
+				for(String query : QUERIES)
+					total += list.getMatchingSpecies(query).size();
+				return total;
+			}
+		});
+		measure("TreeCollection.getCountBySpcBoro", size, order, QUERIES.length * BOROUGHS.length, warmup, iterations, new Operation(){
+			public long run(){
+				long total = 0;
+				for(String query : QUERIES){
+					for(String boro : BOROUGHS)
+						total += collection.getCountByTreeSpeciesBorough(query, boro);
+				}
+				return total;
+			}
+		});
+		measure("TreeList.getCountBySpcBoro", size, order, QUERIES.length * BOROUGHS.length, warmup, iterations, new Operation(){
+			public long run(){
+				long total = 0;
+				for(String query : QUERIES){
+					for(String boro : BOROUGHS)
+						total += list.getCountByTreeSpeciesBorough(query, boro);
+				}
+				return total;
+			}
+		});
+	}
+
+	/**
+	 * Times an operation and prints the average and best time per operation
+	 *
+	 * @param name name of the benchmark
+	 * @param size number of trees in the dataset
+	 * @param order order in which the trees were inserted
+	 * @param operations number of operations done by one run of the operation
+	 * @param warmup number of untimed runs
+	 * @param iterations number of timed runs
+	 * @param operation operation to be timed
+	 */
+	private static void measure(String name, int size, String order, int operations, int warmup,
+			int iterations, Operation operation){
+		for(int i = 0; i < warmup; i++)
+			sink += operation.run();
+
+		long total = 0;
+		long best = Long.MAX_VALUE;
+		for(int i = 0; i < iterations; i++){
+			long start = System.nanoTime();
+			sink += operation.run();
+			long elapsed = System.nanoTime() - start;
+			total += elapsed;
+			best = Math.min(best, elapsed);
+		}
+		double average = (double) total / Math.max(iterations, 1) / operations;
+		System.out.printf("%-38s %9d %9s %14.1f %14.1f%n", name, size, order, average, (double) best / operations);
+	}
+
+	/**
+	 * Generates csv lines in the format of the NYC street tree census, each with 41 data
+	 * slots. The trees are sorted as in a TreeCollection for the sorted order, in the
+	 * opposite direction for the reversed order, and shuffled for the random order.
+	 *
+	 * @param size number of lines
+	 * @param order random, sorted, or reversed
+	 * @return the lines, without the header line
+	 */
+	static String[] generateLines(int size, String order){
+		Random random = new Random(42);
+		final int[] species = new int[size];
+		Integer[] rows = new Integer[size];
+		for(int i = 0; i < size; i++){
+			species[i] = random.nextInt(SPECIES.length);
+			rows[i] = i;
+		}
+
+		if(order.equals("random")){
+			Collections.shuffle(Arrays.asList(rows), random);
+		} else {
+			final int direction = order.equals("sorted") ? 1 : -1;
+			Arrays.sort(rows, new Comparator<Integer>(){
+				public int compare(Integer a, Integer b){
+					int bySpecies = SPECIES[species[a]].compareToIgnoreCase(SPECIES[species[b]]);
+					return direction * ((bySpecies != 0) ? bySpecies : Integer.compare(a, b));
+				}
+			});
+		}
+
+		String[] lines = new String[size];
+		for(int i = 0; i < size; i++){
+			int row = rows[i];
+			String[] slots = new String[41];
+			Arrays.fill(slots, "");
+			slots[0] = Integer.toString(row);
+			slots[3] = Integer.toString(random.nextInt(40));
+			slots[6] = "Alive";
+			slots[7] = (random.nextInt(4) == 0) ? "Fair" : "Good";
+			slots[9] = SPECIES[species[row]];
+			slots[25] = Integer.toString(10001 + random.nextInt(1000));
+			slots[29] = BOROUGHS[random.nextInt(BOROUGHS.length)];
+			slots[39] = Double.toString(913000 + random.nextInt(150000) + random.nextInt(1000) / 1000.0);
+			slots[40] = Double.toString(120000 + random.nextInt(150000) + random.nextInt(1000) / 1000.0);
+			StringBuilder line = new StringBuilder();
+			for(int j = 0; j < slots.length; j++){
+				if(j > 0)
+					line.append(',');
+				line.append(slots[j]);
+			}
+			lines[i] = line.toString();
+		}
+		return lines;
+	}
+}
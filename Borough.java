@@ -1,37 +1,31 @@
 /**
- * Simple class to keep track of the boroughs in the TreeCollection class. Stores the borough name and the
- * number of trees in that borough. Includes simple getters and methods to increment and decrement the count
- * of trees in the borough. 
+ * Enumeration of the five NYC boroughs in which a tree can be located. Each borough 
+ * stores its name, and the boroughs can be looked up by name (ignoring the case), so 
+ * that trees keep a reference to one of these constants instead of their own copy of 
+ * the borough name. 
  * 
  * @author Leila Mardoum
  * @version 4/22/17
  */
 
-public class Borough {
-	private String name;
-	private int count;
+public enum Borough {
+	MANHATTAN("Manhattan"),
+	BRONX("Bronx"),
+	BROOKLYN("Brooklyn"),
+	QUEENS("Queens"),
+	STATEN_ISLAND("Staten Island");
 	
-	/**
-	 * Constructor takes a borough name and initializes the tree count at 1
-	 * @param name borough name
-	 */
-	public Borough(String name){
-		this.name = name;
-		count = 1;
-	}
+	//all boroughs, in the order of their ordinals
+	private static final Borough[] BOROUGHS = values();
 	
-	/**
-	 * Increments count by 1
-	 */
-	public void inc(){
-		count++;
-	}
+	private final String name;
 	
 	/**
-	 * Decrements count by 1
+	 * Constructor takes the borough name
+	 * @param name borough name
 	 */
-	public void dec(){
-		count--;
+	private Borough(String name){
+		this.name = name;
 	}
 	
 	/**
@@ -44,11 +38,28 @@ public class Borough {
 	}
 	
 	/**
-	 * Returns the number of trees located in this borough
+	 * Returns the borough with the given name (ignoring the case)
+	 * 
+	 * @param name borough name
+	 * @return the borough with the given name, or null if it is not a valid NYC borough
+	 */
+	public static Borough fromName(String name){
+		if(name == null)
+			return null;
+		for(Borough b : BOROUGHS){
+			if(b.name.equalsIgnoreCase(name))
+				return b;
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns the borough with the given ordinal
 	 * 
-	 * @return number of trees in this borough
+	 * @param ordinal ordinal of the borough, between 0 and 4
+	 * @return the borough with the given ordinal
 	 */
-	public int getCount(){
-		return count;
+	public static Borough fromOrdinal(int ordinal){
+		return BOROUGHS[ordinal];
 	}
 }
@@ -0,0 +1,321 @@
+/**
+ * This class represents a ConcurrentTreeCollection, a variant of TreeCollection that many
+ * threads can add trees to (and remove trees from) at the same time. The trees are kept
+ * in a ConcurrentSkipListMap, ordered the same way as in a TreeCollection (first by
+ * species name and then by tree id), so no lock is held while a tree is inserted. The
+ * number of trees in total, in each borough, and of each species in each borough are
+ * kept in LongAdder counters, which threads can increment without waiting for each
+ * other. The counters of a species are found by its ordinal in the shared
+ * SpeciesDictionary, and species names are searched with a SpeciesIndex over the species
+ * seen so far, which is built again only when new species have been added. The counts
+ * are weakly consistent: while trees are being added, a count may not
+ * include the trees added in the last instant, but once all additions have finished the
+ * counts are exact.
+ * Once loading is done, toTreeCollection copies the trees into a regular TreeCollection
+ * in linear time.
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ConcurrentTreeCollection {
+	//number of NYC boroughs
+	private static final int BOROUGH_COUNT = Borough.values().length;
+
+	//every tree, mapped to itself so that removing a tree returns the stored one
+	private final ConcurrentSkipListMap<Tree, Tree> trees = new ConcurrentSkipListMap<Tree, Tree>();
+	//number of trees
+	private final LongAdder size = new LongAdder();
+	//number of trees in each borough, indexed by the ordinal of the borough
+	private final LongAdder[] boroCounts = new LongAdder[BOROUGH_COUNT];
+	//number of trees of each species in each borough, indexed by the ordinal of the species in the
+	//shared SpeciesDictionary (null for species not seen yet); replaced by a larger copy when needed
+	private volatile AtomicReferenceArray<LongAdder[]> speciesBoroCounts = new AtomicReferenceArray<LongAdder[]>(64);
+	//ordinals of the species seen so far, in the order they were first seen
+	private int[] speciesSeen = new int[64];
+	private volatile int speciesCount;
+	//substring index over the species seen so far (null until the first search)
+	private volatile SpeciesMatcher matcher;
+	//held while the counters of a new species are created and while the index is built
+	private final Object speciesLock = new Object();
+
+	/**
+	 * Substring index over the lowercase names of some species, with the ordinals of
+	 * those species in the order of the index
+	 */
+	private static class SpeciesMatcher {
+		private final SpeciesIndex index;
+		private final int[] ordinals;
+
+		SpeciesMatcher(SpeciesIndex index, int[] ordinals){
+			this.index = index;
+			this.ordinals = ordinals;
+		}
+	}
+
+	/**
+	 * Default constructor that creates an empty ConcurrentTreeCollection object
+	 */
+	public ConcurrentTreeCollection(){
+		for(int b = 0; b < BOROUGH_COUNT; b++)
+			boroCounts[b] = new LongAdder();
+	}
+
+	/**
+	 * Adds the specified tree if it is not already present. If an equal tree is already
+	 * present, the call leaves the collection unchanged and returns false. When several
+	 * threads add equal trees at the same time, exactly one of them succeeds. Safe to call
+	 * from any number of threads at once.
+	 *
+	 * @param t Tree to be added
+	 * @return true if the tree was added; otherwise, return false
+	 * @throws NullPointerException if the tree is null
+	 */
+	public boolean add(Tree t){
+		if(t == null)
+			throw new NullPointerException("Error: cannot add  null");
+		if(trees.putIfAbsent(t, t) != null)
+			return false;
+		size.increment();
+		boroCounts[t.getBorough().ordinal()].increment();
+		speciesCounts(t.getSpeciesId())[t.getBorough().ordinal()].increment();
+		return true;
+	}
+
+	/**
+	 * Adds all of the trees in the given collection
+	 *
+	 * @param source trees to be added
+	 * @throws NullPointerException if the collection contains null
+	 */
+	public void addAll(Collection<? extends Tree> source){
+		for(Tree t : source)
+			add(t);
+	}
+
+	/**
+	 * Removes the tree equal to the specified tree if present. Safe to call from any
+	 * number of threads at once.
+	 *
+	 * @param t Tree to be removed
+	 * @return true if a tree was removed; otherwise, return false
+	 * @throws NullPointerException if the tree is null
+	 */
+	public boolean remove(Tree t){
+		if(t == null)
+			throw new NullPointerException("Error: cannot remove null");
+		//the stored tree may have a different borough than the parameter
+		Tree stored = trees.remove(t);
+		if(stored == null)
+			return false;
+		size.decrement();
+		boroCounts[stored.getBorough().ordinal()].decrement();
+		speciesCounts(stored.getSpeciesId())[stored.getBorough().ordinal()].decrement();
+		return true;
+	}
+
+	/**
+	 * Returns true if this collection contains a tree equal to the specified tree
+	 *
+	 * @param t tree to be looked for
+	 * @return true if an equal tree is present
+	 */
+	public boolean contains(Tree t){
+		return trees.containsKey(t);
+	}
+
+	/**
+	 * Returns the total number of trees stored in this collection
+	 *
+	 * @return the number of trees
+	 */
+	public int getTotalNumberOfTrees(){
+		return size.intValue();
+	}
+
+	/**
+	 * Returns the number of trees in the collection whose species matches the speciesName
+	 * specified by the parameter (as a substring, ignoring the case)
+	 *
+	 * @param spcName species name to match
+	 * @return total number of trees matching the specified species name (0 if none found)
+	 */
+	public int getCountByTreeSpecies(String spcName){
+		long totalCount = 0;
+		for(LongAdder[] counts : matchingCounts(spcName)){
+			for(LongAdder count : counts)
+				totalCount += count.sum();
+		}
+		return (int) totalCount;
+	}
+
+	/**
+	 * Returns the number of trees in the collection that are located in the borough
+	 * specified by the parameter (ignoring the case)
+	 *
+	 * @param boroName the specified borough
+	 * @return the number of trees located in the specified borough (0 if none found)
+	 */
+	public int getCountByBorough(String boroName){
+		Borough boro = Borough.fromName(boroName);
+		return (boro == null) ? 0 : boroCounts[boro.ordinal()].intValue();
+	}
+
+	/**
+	 * Returns the number of trees in the collection whose species matches the speciesName
+	 * specified by the first parameter and which are located in the borough specified by
+	 * the second parameter
+	 *
+	 * @param spcName species name to match
+	 * @param boroName borough name to match
+	 * @return number of trees whose species and borough match (0 if none found)
+	 */
+	public int getCountByTreeSpeciesBorough(String spcName, String boroName){
+		Borough boro = Borough.fromName(boroName);
+		if(boro == null)
+			return 0;
+		long totalCount = 0;
+		for(LongAdder[] counts : matchingCounts(spcName))
+			totalCount += counts[boro.ordinal()].sum();
+		return (int) totalCount;
+	}
+
+	/**
+	 * Returns a list of all the species with trees in the collection whose names contain
+	 * the given species name (ignoring the case), in alphabetical order and without repeats
+	 *
+	 * @param speciesName species name to search for
+	 * @return list of matching species names (lowercase)
+	 */
+	public Collection<String> getMatchingSpecies(String speciesName){
+		int[] matches = matchingOrdinals(speciesName);
+		//read after the search, so that it has the counters of every species found
+		AtomicReferenceArray<LongAdder[]> counts = speciesBoroCounts;
+		SpeciesDictionary dictionary = SpeciesDictionary.getShared();
+		ArrayList<String> actualSpecies = new ArrayList<String>();
+		for(int spc : matches){
+			if(total(counts.get(spc)) > 0) //leave out species whose trees have all been removed
+				actualSpecies.add(dictionary.getKey(spc));
+		}
+		Collections.sort(actualSpecies);
+		return actualSpecies;
+	}
+
+	/**
+	 * Copies the trees into a new TreeCollection. The trees are taken from the skip list
+	 * in ascending order, so the TreeCollection is built in linear time. If several trees
+	 * have the same tree id, only the first of them in that order is copied. Trees added
+	 * or removed while the copy is being made may or may not be included.
+	 *
+	 * @return TreeCollection containing the trees of this collection
+	 */
+	public TreeCollection toTreeCollection(){
+		TreeCollection result = new TreeCollection();
+		result.addAll(new ArrayList<Tree>(trees.keySet()));
+		return result;
+	}
+
+	/**
+	 * Returns the counters of the given species, creating them the first time the species
+	 * is seen
+	 *
+	 * @param spc ordinal of the species in the shared SpeciesDictionary
+	 * @return number of trees of the species in each borough
+	 */
+	private LongAdder[] speciesCounts(int spc){
+		AtomicReferenceArray<LongAdder[]> counts = speciesBoroCounts;
+		if(spc < counts.length()){
+			LongAdder[] found = counts.get(spc);
+			if(found != null)
+				return found;
+		}
+
+		//new species (or a species another thread is adding right now)
+		synchronized(speciesLock){
+			counts = speciesBoroCounts;
+			if(spc >= counts.length()){
+				//counters are only ever set while holding the lock, so the copy misses none
+				AtomicReferenceArray<LongAdder[]> larger = new AtomicReferenceArray<LongAdder[]>(Math.max(spc + 1, 2 * counts.length()));
+				for(int i = 0; i < counts.length(); i++)
+					larger.set(i, counts.get(i));
+				counts = larger;
+				speciesBoroCounts = larger;
+			}
+			LongAdder[] found = counts.get(spc);
+			if(found == null){
+				found = new LongAdder[BOROUGH_COUNT];
+				for(int b = 0; b < BOROUGH_COUNT; b++)
+					found[b] = new LongAdder();
+				counts.set(spc, found);
+				if(speciesCount == speciesSeen.length)
+					speciesSeen = Arrays.copyOf(speciesSeen, 2 * speciesCount);
+				speciesSeen[speciesCount] = spc;
+				speciesCount++;
+			}
+			return found;
+		}
+	}
+
+	/**
+	 * Returns the ordinals of all species seen so far whose names contain the given
+	 * species name (ignoring the case)
+	 *
+	 * @param spcName species name to match
+	 * @return ordinals of the matching species in the shared SpeciesDictionary
+	 */
+	private int[] matchingOrdinals(String spcName){
+		SpeciesMatcher current = matcher;
+		if(current == null || current.ordinals.length != speciesCount){
+			//species were added since the index was built
+			synchronized(speciesLock){
+				int[] ordinals = Arrays.copyOf(speciesSeen, speciesCount);
+				SpeciesDictionary dictionary = SpeciesDictionary.getShared();
+				ArrayList<String> keys = new ArrayList<String>(ordinals.length);
+				for(int spc : ordinals)
+					keys.add(dictionary.getKey(spc));
+				current = new SpeciesMatcher(new SpeciesIndex(keys), ordinals);
+				matcher = current;
+			}
+		}
+
+		int[] matches = current.index.find(spcName.toLowerCase());
+		for(int i = 0; i < matches.length; i++)
+			matches[i] = current.ordinals[matches[i]];
+		return matches;
+	}
+
+	/**
+	 * Returns the counters of all species whose names contain the given species name
+	 * (ignoring the case)
+	 *
+	 * @param spcName species name to match
+	 * @return counters of the matching species
+	 */
+	private List<LongAdder[]> matchingCounts(String spcName){
+		int[] ordinals = matchingOrdinals(spcName);
+		//read after the search, so that it has the counters of every species found
+		AtomicReferenceArray<LongAdder[]> counts = speciesBoroCounts;
+		ArrayList<LongAdder[]> matches = new ArrayList<LongAdder[]>(ordinals.length);
+		for(int spc : ordinals)
+			matches.add(counts.get(spc));
+		return matches;
+	}
+
+	/**
+	 * Returns the sum of the given counters
+	 *
+	 * @param counts counters to be added up
+	 * @return sum of the counters
+	 */
+	private static long total(LongAdder[] counts){
+		long sum = 0;
+		for(LongAdder count : counts)
+			sum += count.sum();
+		return sum;
+	}
+}
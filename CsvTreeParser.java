@@ -0,0 +1,348 @@
+/**
+ * This class parses lines of the NYC street tree census csv file directly from bytes,
+ * such as the bytes of a memory-mapped file. Only the 9 data slots used by the Tree class
+ * are looked at; the other slots are skipped without creating any objects. Numbers are
+ * read straight from the bytes, and the text slots (status, health, species, and borough)
+ * are looked up in a small cache so that every distinct value becomes a single String.
+ * Lines that contain quotes (regular or smart quotes) or characters outside of printable
+ * ASCII are handed to NYCStreetTrees.splitCSVLine, so they are treated exactly as before.
+ *
+ * A CsvTreeParser keeps its cache between lines and is not safe to share between threads.
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class CsvTreeParser {
+
+	//number of data slots in a valid line of the file
+	private static final int COLUMNS = 41;
+	//data slots used by the Tree class
+	private static final int ID = 0, DIAMETER = 3, STATUS = 6, HEALTH = 7, SPECIES = 9,
+			ZIP = 25, BOROUGH = 29, X_COORD = 39, Y_COORD = 40;
+	//returned by parseInt when the bytes are not a valid int
+	private static final long INVALID = Long.MIN_VALUE;
+	//results of findFields
+	private static final int FOUND = 0, WRONG_COUNT = 1, NEEDS_TEXT = 2;
+	//where accepted and rejected rows are counted
+	private static final TreeMetrics METRICS = TreeMetrics.getShared();
+	//powers of ten that are exactly representable as doubles
+	private static final double[] POWERS_OF_TEN = new double[23];
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for(int i = 1; i < POWERS_OF_TEN.length; i++)
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+	}
+
+	//beginning and end (exclusive) of each used data slot in the current line
+	private final int[] fieldStart = new int[COLUMNS];
+	private final int[] fieldEnd = new int[COLUMNS];
+	//set to false by parseDouble when the bytes are not a valid double
+	private boolean validDouble;
+
+	//cache of the text values seen so far (open addressing, keyed by the bytes of the value)
+	private String[] cachedStrings = new String[256];
+	private byte[][] cachedBytes = new byte[256][];
+	private int cachedCount;
+
+	/**
+	 * Default constructor that creates a parser with an empty cache
+	 */
+	public CsvTreeParser(){
+
+	}
+
+	/**
+	 * Parses every line between the two positions of the buffer, which must begin at the
+	 * beginning of a line and end at the end of a line. A line ends at '\n' or '\r'.
+	 *
+	 * @param buffer bytes of the file
+	 * @param start position of the first byte to be parsed
+	 * @param end position just after the last byte to be parsed
+	 * @return list of the valid trees between the two positions, in file order
+	 */
+	public List<Tree> parse(ByteBuffer buffer, int start, int end){
+		List<Tree> trees = new ArrayList<Tree>();
+		int lineStart = start;
+		for(int i = start; i <= end; i++){
+			//a line ends at '\n' or '\r' (the empty line inside "\r\n" has no data slots)
+			if(i == end || buffer.get(i) == '\n' || buffer.get(i) == '\r'){
+				if(i > lineStart){
+					Tree entry = parseLine(buffer, lineStart, i);
+					if(entry != null)
+						trees.add(entry);
+				}
+				lineStart = i + 1;
+			}
+		}
+		METRICS.accept(trees.size());
+		return trees;
+	}
+
+	/**
+	 * Parses one line of the csv file into a Tree object. Returns null if the line does
+	 * not have the right number of data slots or if the entry is not a valid tree.
+	 *
+	 * @param buffer bytes of the file
+	 * @param start position of the first byte of the line
+	 * @param end position just after the last byte of the line (not including the line break)
+	 * @return Tree described by the line, or null if the line is invalid
+	 */
+	public Tree parseLine(ByteBuffer buffer, int start, int end){
+		int result = findFields(buffer, start, end);
+		if(result == WRONG_COUNT){
+			METRICS.reject(RejectReason.WRONG_COLUMN_COUNT);
+			return null; //if there are not 41 data slots, tree is invalid, skip line
+		}
+		if(result == NEEDS_TEXT){
+			//line needs the full treatment of quotes and non-ASCII characters
+			byte[] line = new byte[end - start];
+			for(int i = 0; i < line.length; i++)
+				line[i] = buffer.get(start + i);
+			return TreeLoader.parseTree(new String(line, StandardCharsets.UTF_8));
+		}
+
+		long id = parseInt(buffer, fieldStart[ID], fieldEnd[ID]);
+		long diam = parseInt(buffer, fieldStart[DIAMETER], fieldEnd[DIAMETER]);
+		long zip = parseInt(buffer, fieldStart[ZIP], fieldEnd[ZIP]);
+		validDouble = true;
+		double xCoord = parseDouble(buffer, fieldStart[X_COORD], fieldEnd[X_COORD]);
+		double yCoord = parseDouble(buffer, fieldStart[Y_COORD], fieldEnd[Y_COORD]);
+		if(id == INVALID || diam == INVALID || zip == INVALID || !validDouble){
+			METRICS.reject(RejectReason.INVALID_NUMBER);
+			return null; //a number could not be read, skip line
+		}
+
+		String status = getString(buffer, fieldStart[STATUS], fieldEnd[STATUS]);
+		String health = getString(buffer, fieldStart[HEALTH], fieldEnd[HEALTH]);
+		String spc = getString(buffer, fieldStart[SPECIES], fieldEnd[SPECIES]);
+		String boro = getString(buffer, fieldStart[BOROUGH], fieldEnd[BOROUGH]);
+		Tree entry = Tree.tryCreate((int) id, (int) diam, status, health, spc, (int) zip, boro, xCoord, yCoord);
+		if(entry == null)
+			METRICS.reject(Tree.validate((int) id, (int) diam, status, health, spc, (int) zip, boro)); //if entry invalid, skip line
+		return entry;
+	}
+
+	/**
+	 * Finds the beginning and end of every data slot in the line the same way
+	 * NYCStreetTrees.splitCSVLine would: spaces before a slot are skipped, spaces after it
+	 * are kept, and the last slot is trimmed and only counted if it is not empty. Lines 
+	 * that contain a quote or a byte that is not printable ASCII or a tab have to be 
+	 * parsed as text instead.
+	 *
+	 * @param buffer bytes of the file
+	 * @param start position of the first byte of the line
+	 * @param end position just after the last byte of the line
+	 * @return FOUND if the data slots were found, WRONG_COUNT if the line does not have
+	 * exactly 41 data slots, or NEEDS_TEXT if the line has to be parsed as text
+	 */
+	private int findFields(ByteBuffer buffer, int start, int end){
+		int field = 0;
+		int contentStart = -1; //position of the first non-space byte of the current slot
+		for(int i = start; i < end; i++){
+			byte b = buffer.get(i);
+			if(b == '"' || (b < ' ' && b != '\t') || b > '~')
+				return NEEDS_TEXT;
+			if(b == ','){
+				if(field >= COLUMNS){
+					//too many slots, but the rest of the line still decides whether it is text
+					field++;
+					continue;
+				}
+				fieldStart[field] = (contentStart < 0) ? i : contentStart;
+				fieldEnd[field] = i;
+				field++;
+				contentStart = -1;
+			}
+			else if(contentStart < 0 && b != ' ' && b != '\t')
+				contentStart = i;
+		}
+
+		//the last slot only counts if it has something besides spaces, and it is trimmed
+		if(contentStart >= 0){
+			if(field >= COLUMNS)
+				return WRONG_COUNT;
+			int contentEnd = end;
+			while(buffer.get(contentEnd - 1) == ' ' || buffer.get(contentEnd - 1) == '\t')
+				contentEnd--;
+			fieldStart[field] = contentStart;
+			fieldEnd[field] = contentEnd;
+			field++;
+		}
+		return (field == COLUMNS) ? FOUND : WRONG_COUNT;
+	}
+
+	/**
+	 * Reads an int from the bytes between the two positions, accepting exactly what
+	 * Integer.parseInt accepts: an optional sign followed by at least one digit.
+	 *
+	 * @param buffer bytes of the file
+	 * @param start position of the first byte of the number
+	 * @param end position just after the last byte of the number
+	 * @return value of the number, or INVALID if the bytes are not a valid int
+	 */
+	private static long parseInt(ByteBuffer buffer, int start, int end){
+		boolean negative = false;
+		int i = start;
+		if(i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')){
+			negative = (buffer.get(i) == '-');
+			i++;
+		}
+		if(i == end)
+			return INVALID;
+
+		long value = 0;
+		for(; i < end; i++){
+			int digit = buffer.get(i) - '0';
+			if(digit < 0 || digit > 9)
+				return INVALID;
+			value = value * 10 + digit;
+			if(value > (long) Integer.MAX_VALUE + 1)
+				return INVALID; //too large for an int
+		}
+		if(negative)
+			value = -value;
+		if(value > Integer.MAX_VALUE)
+			return INVALID;
+		return value;
+	}
+
+	/**
+	 * Reads a double from the bytes between the two positions. Plain decimal numbers with
+	 * up to 15 significant digits are read straight from the bytes; the result is exact
+	 * because both the digits and the power of ten fit in a double, so one division gives
+	 * the correctly rounded value. Everything else is read with Double.parseDouble, after
+	 * checking with TreeLoader.isDouble that it will not throw an exception. If the bytes
+	 * are not a valid double, validDouble is set to false.
+	 *
+	 * @param buffer bytes of the file
+	 * @param start position of the first byte of the number
+	 * @param end position just after the last byte of the number
+	 * @return value of the number (or 0 if the bytes are not a valid double)
+	 */
+	private double parseDouble(ByteBuffer buffer, int start, int end){
+		int i = start;
+		boolean negative = false;
+		if(i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')){
+			negative = (buffer.get(i) == '-');
+			i++;
+		}
+
+		long digits = 0;
+		int significantDigits = 0;
+		int fractionDigits = 0;
+		boolean seenDigit = false;
+		boolean seenPoint = false;
+		for(; i < end; i++){
+			byte b = buffer.get(i);
+			if(b >= '0' && b <= '9'){
+				digits = digits * 10 + (b - '0');
+				seenDigit = true;
+				if(digits != 0)
+					significantDigits++;
+				if(seenPoint)
+					fractionDigits++;
+			}
+			else if(b == '.' && !seenPoint)
+				seenPoint = true;
+			else
+				break; //not a plain decimal number
+		}
+
+		if(i == end && seenDigit && significantDigits <= 15 && fractionDigits < POWERS_OF_TEN.length){
+			double value = digits / POWERS_OF_TEN[fractionDigits];
+			return negative ? -value : value;
+		}
+
+		//anything else (exponents, surrounding spaces, "NaN", ...) is left to Double.parseDouble
+		byte[] text = new byte[end - start];
+		for(int j = 0; j < text.length; j++)
+			text[j] = buffer.get(start + j);
+		String number = new String(text, StandardCharsets.US_ASCII);
+		if(!TreeLoader.isDouble(number)){
+			validDouble = false;
+			return 0;
+		}
+		return Double.parseDouble(number);
+	}
+
+	/**
+	 * Returns the String made of the bytes between the two positions, reusing the String
+	 * created the first time the same bytes were seen.
+	 *
+	 * @param buffer bytes of the file
+	 * @param start position of the first byte of the text
+	 * @param end position just after the last byte of the text
+	 * @return String made of the bytes (which are all ASCII)
+	 */
+	private String getString(ByteBuffer buffer, int start, int end){
+		int hash = 0;
+		for(int i = start; i < end; i++)
+			hash = 31 * hash + buffer.get(i);
+
+		int mask = cachedStrings.length - 1;
+		int slot = (hash ^ (hash >>> 16)) & mask;
+		while(cachedBytes[slot] != null){
+			if(sameBytes(cachedBytes[slot], buffer, start, end))
+				return cachedStrings[slot];
+			slot = (slot + 1) & mask;
+		}
+
+		//first time these bytes are seen, add them to the cache
+		byte[] bytes = new byte[end - start];
+		for(int i = 0; i < bytes.length; i++)
+			bytes[i] = buffer.get(start + i);
+		String value = new String(bytes, StandardCharsets.US_ASCII);
+		cachedBytes[slot] = bytes;
+		cachedStrings[slot] = value;
+		if(++cachedCount * 2 > cachedStrings.length)
+			growCache();
+		return value;
+	}
+
+	/**
+	 * Returns true if the given bytes are the same as the bytes between the two positions
+	 *
+	 * @param bytes bytes to compare
+	 * @param buffer bytes of the file
+	 * @param start position of the first byte to compare
+	 * @param end position just after the last byte to compare
+	 * @return true if the bytes are the same
+	 */
+	private static boolean sameBytes(byte[] bytes, ByteBuffer buffer, int start, int end){
+		if(bytes.length != end - start)
+			return false;
+		for(int i = 0; i < bytes.length; i++){
+			if(bytes[i] != buffer.get(start + i))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Doubles the capacity of the cache of text values
+	 */
+	private void growCache(){
+		String[] oldStrings = cachedStrings;
+		byte[][] oldBytes = cachedBytes;
+		cachedStrings = new String[oldStrings.length * 2];
+		cachedBytes = new byte[oldBytes.length * 2][];
+		int mask = cachedStrings.length - 1;
+		for(int i = 0; i < oldBytes.length; i++){
+			if(oldBytes[i] == null)
+				continue;
+			int hash = 0;
+			for(byte b : oldBytes[i])
+				hash = 31 * hash + b;
+			int slot = (hash ^ (hash >>> 16)) & mask;
+			while(cachedBytes[slot] != null)
+				slot = (slot + 1) & mask;
+			cachedBytes[slot] = oldBytes[i];
+			cachedStrings[slot] = oldStrings[i];
+		}
+	}
+}
@@ -0,0 +1,158 @@
+/**
+ * This class counts trees by diameter (at breast height, in inches) for every species in
+ * every borough, so that questions such as "how many oaks in Queens are over 24 inches"
+ * can be answered without looking at the trees. Each species and borough has a Fenwick
+ * tree (binary indexed tree) over the diameters 0 to DIAMETER_LIMIT - 1, which adds or
+ * removes a tree and counts the trees in a range of diameters in time proportional to
+ * the logarithm of DIAMETER_LIMIT. The few trees with larger diameters are kept in a
+ * separate list that is checked directly. Species are identified by their ordinals in
+ * the shared SpeciesDictionary, and the counts are updated as trees are added and removed.
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+import java.util.*;
+
+public class DiameterIndex {
+
+	//diameters below this value are counted in the Fenwick trees
+	public static final int DIAMETER_LIMIT = 1024;
+	//number of NYC boroughs
+	private static final int BOROUGH_COUNT = Borough.values().length;
+
+	//Fenwick tree of every species (by ordinal) in every borough, created with its first tree
+	private int[][][] fenwick = new int[64][][];
+	//species, borough ordinal and diameter of every tree whose diameter is too large for the Fenwick trees
+	private int[] largeSpecies = new int[16];
+	private int[] largeBoroughs = new int[16];
+	private int[] largeDiameters = new int[16];
+	private int largeCount;
+
+	/**
+	 * Default constructor that creates an index with no trees counted
+	 */
+	public DiameterIndex(){
+
+	}
+
+	/**
+	 * Counts the given tree under its species, borough and diameter
+	 *
+	 * @param t tree to be counted
+	 */
+	public void add(Tree t){
+		int spc = t.getSpeciesId();
+		int boro = t.getBorough().ordinal();
+		int diam = t.getDiameter();
+		if(diam >= DIAMETER_LIMIT){
+			if(largeCount == largeDiameters.length){
+				largeSpecies = Arrays.copyOf(largeSpecies, largeCount * 2);
+				largeBoroughs = Arrays.copyOf(largeBoroughs, largeCount * 2);
+				largeDiameters = Arrays.copyOf(largeDiameters, largeCount * 2);
+			}
+			largeSpecies[largeCount] = spc;
+			largeBoroughs[largeCount] = boro;
+			largeDiameters[largeCount] = diam;
+			largeCount++;
+			return;
+		}
+
+		if(spc >= fenwick.length)
+			fenwick = Arrays.copyOf(fenwick, Math.max(spc + 1, fenwick.length * 2));
+		if(fenwick[spc] == null)
+			fenwick[spc] = new int[BOROUGH_COUNT][];
+		if(fenwick[spc][boro] == null)
+			fenwick[spc][boro] = new int[DIAMETER_LIMIT + 1];
+		update(fenwick[spc][boro], diam, 1);
+	}
+
+	/**
+	 * Stops counting the given tree, which must have been counted with add before
+	 *
+	 * @param t tree that was removed
+	 */
+	public void remove(Tree t){
+		int spc = t.getSpeciesId();
+		int boro = t.getBorough().ordinal();
+		int diam = t.getDiameter();
+		if(diam < DIAMETER_LIMIT){
+			update(fenwick[spc][boro], diam, -1);
+			return;
+		}
+
+		//move the last large tree into the place of the removed one
+		for(int i = 0; i < largeCount; i++){
+			if(largeSpecies[i] == spc && largeBoroughs[i] == boro && largeDiameters[i] == diam){
+				largeCount--;
+				largeSpecies[i] = largeSpecies[largeCount];
+				largeBoroughs[i] = largeBoroughs[largeCount];
+				largeDiameters[i] = largeDiameters[largeCount];
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of trees of the given species in the given borough whose
+	 * diameter is between min and max (inclusive)
+	 *
+	 * @param spc ordinal of the species in the shared SpeciesDictionary
+	 * @param boro the borough, or null for all boroughs
+	 * @param min smallest diameter (in)
+	 * @param max largest diameter (in)
+	 * @return number of trees in the range (0 if min is greater than max)
+	 */
+	public int getCount(int spc, Borough boro, int min, int max){
+		min = Math.max(min, 0);
+		if(spc < 0 || min > max)
+			return 0;
+
+		int count = 0;
+		//diameters counted in the Fenwick trees
+		int fenwickMax = Math.min(max, DIAMETER_LIMIT - 1);
+		if(min <= fenwickMax && spc < fenwick.length && fenwick[spc] != null){
+			for(int b = 0; b < BOROUGH_COUNT; b++){
+				int[] tree = fenwick[spc][b];
+				if(tree != null && (boro == null || boro.ordinal() == b))
+					count += prefix(tree, fenwickMax) - prefix(tree, min - 1);
+			}
+		}
+		//larger diameters
+		if(max >= DIAMETER_LIMIT){
+			for(int i = 0; i < largeCount; i++){
+				if(largeSpecies[i] == spc && (boro == null || largeBoroughs[i] == boro.ordinal())
+						&& largeDiameters[i] >= min && largeDiameters[i] <= max)
+					count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Adds the given amount to the count of the given diameter in a Fenwick tree
+	 *
+	 * @param tree the Fenwick tree
+	 * @param diam diameter, between 0 and DIAMETER_LIMIT - 1
+	 * @param amount amount to be added
+	 */
+	private static void update(int[] tree, int diam, int amount){
+		for(int i = diam + 1; i < tree.length; i += i & -i)
+			tree[i] += amount;
+	}
+
+	/**
+	 * Returns the number of trees counted in a Fenwick tree with a diameter of at most
+	 * the given value
+	 *
+	 * @param tree the Fenwick tree
+	 * @param diam largest diameter, between -1 and DIAMETER_LIMIT - 1
+	 * @return number of trees with a diameter of at most diam
+	 */
+	private static int prefix(int[] tree, int diam){
+		int count = 0;
+		for(int i = diam + 1; i > 0; i -= i & -i)
+			count += tree[i];
+		return count;
+	}
+}
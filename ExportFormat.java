@@ -0,0 +1,222 @@
+/**
+ * Enumeration of the formats in which a TreeCollection can write out its trees: CSV,
+ * with a header line and one line per tree, JSON lines, with one JSON object per line
+ * and no header, or JSON, with the same objects in one JSON array. All of the formats
+ * use the column names of the NYC street tree census.
+ * Each format writes straight to an Appendable without building any intermediate
+ * strings for a whole tree.
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+import java.io.IOException;
+
+public enum ExportFormat {
+	CSV {
+		@Override
+		public void writeHeader(Appendable out) throws IOException {
+			out.append("tree_id,tree_dbh,status,health,spc_common,zipcode,boroname,x_sp,y_sp\n");
+		}
+
+		@Override
+		public void writeTree(Tree t, Appendable out) throws IOException {
+			out.append(Integer.toString(t.getTreeId())).append(',');
+			out.append(Integer.toString(t.getDiameter())).append(',');
+			out.append(t.getStatus().getName()).append(',');
+			out.append(t.getHealth().getName()).append(',');
+			appendCsvField(out, t.getTreeSpecies());
+			out.append(',');
+			appendZip(out, t.getZip());
+			out.append(',');
+			out.append(t.getBorough().getName()).append(',');
+			out.append(Double.toString(t.getXCoord())).append(',');
+			out.append(Double.toString(t.getYCoord())).append('\n');
+		}
+	},
+	JSON_LINES {
+		@Override
+		public void writeHeader(Appendable out){
+			//JSON lines have no header
+		}
+
+		@Override
+		public void writeTree(Tree t, Appendable out) throws IOException {
+			appendJsonObject(out, t);
+			out.append('\n');
+		}
+	},
+	JSON {
+		@Override
+		public void writeHeader(Appendable out) throws IOException {
+			out.append("[\n");
+		}
+
+		@Override
+		public void writeTree(Tree t, Appendable out) throws IOException {
+			appendJsonObject(out, t);
+		}
+
+		@Override
+		public void writeSeparator(Appendable out) throws IOException {
+			out.append(",\n");
+		}
+
+		@Override
+		public void writeFooter(Appendable out) throws IOException {
+			out.append("\n]\n");
+		}
+	};
+
+	/**
+	 * Writes whatever comes before the first tree in this format
+	 *
+	 * @param out where to write to
+	 * @throws IOException if writing fails
+	 */
+	public abstract void writeHeader(Appendable out) throws IOException;
+
+	/**
+	 * Writes one tree in this format (followed by a line break, except in JSON)
+	 *
+	 * @param t tree to be written
+	 * @param out where to write to
+	 * @throws IOException if writing fails
+	 */
+	public abstract void writeTree(Tree t, Appendable out) throws IOException;
+
+	/**
+	 * Writes whatever comes between two trees in this format (nothing, except in JSON)
+	 *
+	 * @param out where to write to
+	 * @throws IOException if writing fails
+	 */
+	public void writeSeparator(Appendable out) throws IOException {
+
+	}
+
+	/**
+	 * Writes whatever comes after the last tree in this format (nothing, except in JSON)
+	 *
+	 * @param out where to write to
+	 * @throws IOException if writing fails
+	 */
+	public void writeFooter(Appendable out) throws IOException {
+
+	}
+
+	/**
+	 * Writes one tree as a JSON object, without a line break
+	 *
+	 * @param out where to write to
+	 * @param t tree to be written
+	 * @throws IOException if writing fails
+	 */
+	static void appendJsonObject(Appendable out, Tree t) throws IOException {
+		out.append("{\"tree_id\":").append(Integer.toString(t.getTreeId()));
+		out.append(",\"tree_dbh\":").append(Integer.toString(t.getDiameter()));
+		out.append(",\"status\":");
+		appendJsonString(out, t.getStatus().getName());
+		out.append(",\"health\":");
+		appendJsonString(out, t.getHealth().getName());
+		out.append(",\"spc_common\":");
+		appendJsonString(out, t.getTreeSpecies());
+		out.append(",\"zipcode\":\"");
+		appendZip(out, t.getZip());
+		out.append("\",\"boroname\":");
+		appendJsonString(out, t.getBorough().getName());
+		out.append(",\"x_sp\":");
+		appendJsonNumber(out, t.getXCoord());
+		out.append(",\"y_sp\":");
+		appendJsonNumber(out, t.getYCoord());
+		out.append('}');
+	}
+
+	/**
+	 * Writes the given string as a JSON string literal, in double quotes and with the
+	 * quotes, backslashes and control characters in it escaped
+	 *
+	 * @param out where to write to
+	 * @param s string to be written
+	 * @throws IOException if writing fails
+	 */
+	static void appendJsonString(Appendable out, String s) throws IOException {
+		out.append('"');
+		int start = 0; //first character not written yet
+		for(int i = 0; i < s.length(); i++){
+			char c = s.charAt(i);
+			if(c != '"' && c != '\\' && c >= ' ')
+				continue;
+			out.append(s, start, i);
+			start = i + 1;
+			if(c == '"')
+				out.append("\\\"");
+			else if(c == '\\')
+				out.append("\\\\");
+			else if(c == '\n')
+				out.append("\\n");
+			else if(c == '\r')
+				out.append("\\r");
+			else if(c == '\t')
+				out.append("\\t");
+			else
+				out.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 15, 16));
+		}
+		out.append(s, start, s.length()).append('"');
+	}
+
+	/**
+	 * Writes the given number as a JSON number, or as null if it is NaN or infinite,
+	 * since JSON has no way to write those
+	 *
+	 * @param out where to write to
+	 * @param d number to be written
+	 * @throws IOException if writing fails
+	 */
+	static void appendJsonNumber(Appendable out, double d) throws IOException {
+		if(Double.isNaN(d) || Double.isInfinite(d))
+			out.append("null");
+		else
+			out.append(Double.toString(d));
+	}
+
+	/**
+	 * Writes the given string as a CSV field, surrounding it with double quotes (and
+	 * doubling the quotes in it) only if it contains a comma, a quote or a line break
+	 *
+	 * @param out where to write to
+	 * @param s string to be written
+	 * @throws IOException if writing fails
+	 */
+	static void appendCsvField(Appendable out, String s) throws IOException {
+		boolean needsQuotes = false;
+		for(int i = 0; i < s.length() && !needsQuotes; i++){
+			char c = s.charAt(i);
+			needsQuotes = (c == ',' || c == '"' || c == '\n' || c == '\r');
+		}
+		if(!needsQuotes){
+			out.append(s);
+			return;
+		}
+		out.append('"');
+		for(int i = 0; i < s.length(); i++){
+			char c = s.charAt(i);
+			if(c == '"')
+				out.append('"');
+			out.append(c);
+		}
+		out.append('"');
+	}
+
+	/**
+	 * Writes the given zip code with five digits, including leading zeros
+	 *
+	 * @param out where to write to
+	 * @param zip zip code, between 0 and 99999
+	 * @throws IOException if writing fails
+	 */
+	static void appendZip(Appendable out, int zip) throws IOException {
+		for(int divisor = 10000; divisor > 0; divisor /= 10)
+			out.append((char) ('0' + zip / divisor % 10));
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * Enumeration of the health of a tree: good, fair, or poor. Trees whose health 
+ * was not recorded have the health NONE. The health values can be looked up by name 
+ * (ignoring the case).
+ * 
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+public enum Health {
+	NONE(""),
+	GOOD("Good"),
+	FAIR("Fair"),
+	POOR("Poor");
+	
+	//all health values, in the order of their ordinals
+	private static final Health[] HEALTHS = values();
+	
+	private final String name;
+	
+	/**
+	 * Constructor takes the name of the health value
+	 * @param name name of the health value
+	 */
+	private Health(String name){
+		this.name = name;
+	}
+	
+	/**
+	 * Returns the name of the health value
+	 * 
+	 * @return the name of the health value (empty string for NONE)
+	 */
+	public String getName(){
+		return name;
+	}
+	
+	/**
+	 * Returns the health value with the given name (ignoring the case). A null or empty name
+	 * means the health was not recorded.
+	 * 
+	 * @param name name of the health value
+	 * @return the health value with the given name, or null if it is not a valid health value
+	 */
+	public static Health fromName(String name){
+		if(name == null || name.trim().isEmpty())
+			return NONE;
+		for(Health h : HEALTHS){
+			if(h.name.equalsIgnoreCase(name))
+				return h;
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns the health value with the given ordinal
+	 * 
+	 * @param ordinal ordinal of the health value, between 0 and 3
+	 * @return the health value with the given ordinal
+	 */
+	public static Health fromOrdinal(int ordinal){
+		return HEALTHS[ordinal];
+	}
+}
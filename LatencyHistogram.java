@@ -0,0 +1,148 @@
+/**
+ * This class records how long an operation takes, so that the percentiles of its
+ * latency can be reported. Like an HdrHistogram, it counts the values in buckets whose
+ * width grows with the value: every power of two is split into 16 buckets, so a value
+ * is known to within about 6% of itself, from one nanosecond to the largest long, in a
+ * fixed array of fewer than 1,000 counters. Recording a value only increments
+ * counters, so it is cheap and never allocates memory, and any number of threads can
+ * record values at the same time.
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LatencyHistogram {
+
+	//values below this are counted exactly, each in its own bucket
+	private static final int EXACT = 32;
+	//number of buckets for every power of two above EXACT
+	private static final int SUB_BUCKETS = EXACT / 2;
+	//number of bits of a value that pick its bucket within its power of two
+	private static final int SUB_BUCKET_BITS = 4;
+	//enough buckets for every non-negative long
+	private static final int BUCKETS = EXACT + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Default constructor that creates a histogram with no values recorded
+	 */
+	public LatencyHistogram(){
+
+	}
+
+	/**
+	 * Records one value
+	 *
+	 * @param nanos duration in nanoseconds (negative durations are recorded as 0)
+	 */
+	public void record(long nanos){
+		if(nanos < 0)
+			nanos = 0;
+		counts.incrementAndGet(bucket(nanos));
+		count.incrementAndGet();
+		total.addAndGet(nanos);
+		long largest = max.get();
+		while(nanos > largest && !max.compareAndSet(largest, nanos))
+			largest = max.get();
+	}
+
+	/**
+	 * Records the time passed since the given start time
+	 *
+	 * @param start value of System.nanoTime() when the operation started
+	 */
+	public void recordSince(long start){
+		record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Returns the number of values recorded
+	 *
+	 * @return number of values
+	 */
+	public long getCount(){
+		return count.get();
+	}
+
+	/**
+	 * Returns the mean of the values recorded
+	 *
+	 * @return mean value in nanoseconds (0 if no values were recorded)
+	 */
+	public double getMean(){
+		long n = count.get();
+		return (n == 0) ? 0 : (double) total.get() / n;
+	}
+
+	/**
+	 * Returns the largest value recorded
+	 *
+	 * @return largest value in nanoseconds (0 if no values were recorded)
+	 */
+	public long getMax(){
+		return max.get();
+	}
+
+	/**
+	 * Returns the value below which the given percentage of the recorded values fall.
+	 * The result is the largest value of the bucket holding that value (but never more
+	 * than the largest value recorded), so it is at most about 6% too large.
+	 *
+	 * @param percent percentile, between 0 and 100
+	 * @return value at the percentile in nanoseconds (0 if no values were recorded)
+	 */
+	public long getValueAtPercentile(double percent){
+		long n = 0;
+		long[] snapshot = new long[BUCKETS];
+		for(int i = 0; i < BUCKETS; i++){
+			snapshot[i] = counts.get(i);
+			n += snapshot[i];
+		}
+		if(n == 0)
+			return 0;
+
+		long rank = Math.max(1, (long) Math.ceil(Math.min(percent, 100) / 100 * n));
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++){
+			seen += snapshot[i];
+			if(seen >= rank)
+				return Math.min(highestValue(i), max.get());
+		}
+		return max.get();
+	}
+
+	/**
+	 * Returns the bucket of the given value
+	 *
+	 * @param value non-negative value
+	 * @return index of the bucket
+	 */
+	private static int bucket(long value){
+		if(value < EXACT)
+			return (int) value;
+		//shift that leaves the value between SUB_BUCKETS and EXACT - 1
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return EXACT + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+	}
+
+	/**
+	 * Returns the largest value counted in the given bucket
+	 *
+	 * @param bucket index of the bucket
+	 * @return largest value of the bucket
+	 */
+	private static long highestValue(int bucket){
+		if(bucket < EXACT)
+			return bucket;
+		int shift = (bucket - EXACT) / SUB_BUCKETS + 1;
+		long lowest = (long) ((bucket - EXACT) % SUB_BUCKETS + SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
@@ -1,19 +1,34 @@
 /**
  * This class is an implementation of a binary search tree. The ordering of this
  * binary search tree is based on comparisons made using the Comparable interface. 
- * This binary search tree does not accept duplicate values or null values. 
+ * This binary search tree does not accept duplicate values or null values. The tree
+ * is kept balanced as an AVL tree, so adding, finding, and removing elements takes 
+ * logarithmic time no matter the order the elements are added in. The elements can
+ * be iterated over in ascending order, and streamed (also in parallel) through a 
+ * spliterator that splits the tree by the ranks of its elements.
  * 
  * @author Leila Mardoum
  * @version 4/22/17
  * @param <E> type of data to be stored in nodes of binary search tree
  */
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class MyBST<E extends Comparable<E>> {
+public class MyBST<E extends Comparable<E>> implements Iterable<E> {
 	
 	protected BSTNode<E> root;
 	protected int size;
+	//incremented every time elements are added or removed, so iterators can detect changes
+	protected int modCount;
 	
 	/**
 	 * Default constructor that creates an empty MyBST object
@@ -26,6 +41,8 @@ public class MyBST<E extends Comparable<E>> {
 	 * Adds the specified element to this MyBST if it is not already present. If the 
 	 * set already contains the element, the call leaves the set unchanged and 
 	 * returns false. Does not permit duplicate elements or null element to be added.
+	 * After the element is added, the tree is rebalanced so that its height stays 
+	 * logarithmic in its size regardless of the order in which elements are added.
 	 * 
 	 * @param data element to be added
 	 * @return true if element was added; otherwise, return false
@@ -36,36 +53,97 @@ public class MyBST<E extends Comparable<E>> {
 	public boolean add(E data) throws ClassCastException {
 		if(data == null)
 			throw new NullPointerException("Error: cannot add  null");
-		//if element not already in BST, add it
-		if(!contains(data)){
-			BSTNode<E> newNode = new BSTNode<E>(data);
-			root = add(newNode, root); //modified tree
+		
+		//if tree empty, add new node as root
+		if(root == null){
+			root = new BSTNode<E>(data);
+			update(root);
 			size++;
+			modCount++;
 			return true;
 		}
+		
+		//find the position of the new element in a single descent, stopping if it is already present
+		BSTNode<E> current = root;
+		BSTNode<E> parent;
+		int comparison;
+		do {
+			parent = current;
+			comparison = data.compareTo(current.getData());
+			//if new element < current node, go left
+			if(comparison < 0)
+				current = current.getLeft();
+			//if new element > current node, go right
+			else if(comparison > 0)
+				current = current.getRight();
+			//element already in BST
+			else
+				return false;
+		} while(current != null);
+		
+		BSTNode<E> newNode = new BSTNode<E>(data);
+		newNode.setParent(parent);
+		if(comparison < 0)
+			parent.setLeft(newNode);
 		else
-			return false;
+			parent.setRight(newNode);
+		size++;
+		modCount++;
+		rebalance(newNode); //restore balance from the new node up to the root
+		return true;
 	}
 	
 	/**
-	 * Helper add method. Adds a new node to the binary search tree
-	 * in its correct position.
+	 * Builds this MyBST from a list of elements that is already sorted in ascending 
+	 * order and contains no duplicates. The resulting tree is perfectly balanced and 
+	 * is built in linear time, which is much faster than adding the elements one at 
+	 * a time. This MyBST must be empty when the method is called.
 	 * 
-	 * @param newNode new node to be added to BST
-	 * @param current current node in search
-	 * @return modified binary search tree after add is performed
+	 * @param sorted list of elements in strictly ascending order
+	 * @throws IllegalStateException if this MyBST is not empty
+	 * @throws IllegalArgumentException if the list is not in strictly ascending order
+	 * @throws NullPointerException if the list contains null
 	 */
-	private BSTNode<E> add(BSTNode<E> newNode, BSTNode<E> current){
-		//if list empty, add newNode as root
-		if(current == null)
-			return newNode;
-		//if new node > current node, go right
-		else if(newNode.compareTo(current) > 0)
-			current.setRight(add(newNode, current.getRight()));
-		//if new node < current node, go left
-		else if(newNode.compareTo(current) < 0)
-			current.setLeft(add(newNode, current.getLeft()));
-		return current;
+	public void bulkLoad(List<? extends E> sorted){
+		if(root != null)
+			throw new IllegalStateException("Error: bulkLoad requires an empty tree");
+		
+		//typed copy with constant time access, whatever kind of list is given
+		ArrayList<E> items = new ArrayList<E>(sorted);
+		//check that the elements are in strictly ascending order
+		for(int i = 0; i < items.size(); i++){
+			if(items.get(i) == null)
+				throw new NullPointerException("Error: cannot add  null");
+			if(i > 0 && items.get(i - 1).compareTo(items.get(i)) >= 0)
+				throw new IllegalArgumentException("Error: elements must be sorted without duplicates");
+		}
+		
+		root = build(items, 0, items.size() - 1, null);
+		size = items.size();
+		modCount++;
+	}
+	
+	/**
+	 * Recursive helper method to bulkLoad. Builds a balanced subtree out of the sorted
+	 * elements between the two indices (inclusive) by making the middle element the 
+	 * root of the subtree.
+	 * 
+	 * @param items sorted elements
+	 * @param low index of the first element of the subtree
+	 * @param high index of the last element of the subtree
+	 * @param parent parent of the subtree being built
+	 * @return root of the subtree (or null if the range is empty)
+	 */
+	private BSTNode<E> build(List<E> items, int low, int high, BSTNode<E> parent){
+		if(low > high)
+			return null;
+		int mid = (low + high) >>> 1;
+		BSTNode<E> node = new BSTNode<E>(items.get(mid));
+		node.setParent(parent);
+		node.setLeft(build(items, low, mid - 1, node));
+		node.setRight(build(items, mid + 1, high, node));
+		update(node);
+		return node;
 	}
 	
 	/**
@@ -79,54 +157,54 @@ public class MyBST<E extends Comparable<E>> {
 	 * @throws NullPointerException if the specified element is null
 	 */
 	public boolean remove(Object o) throws ClassCastException {
-		root = recRemove(root, (E) o);
-		if(root == null){
-			return false;
-		} else
-			return true;
-	}
-	
-	/**
-	 * Recursive helper method to remove. Finds desired element if it exists in the BST
-	 * and removes it.
-	 * 
-	 * @param node current node in BST
-	 * @param item element to be removed
-	 * @return reference modified BST after removal (or null if node is null)
-	 */
-	private BSTNode<E> recRemove(BSTNode<E> node, E item){
+		if(o == null)
+			throw new NullPointerException("Error: cannot remove null");
+		E item = (E) o;
+		
+		//find the node holding the item
+		BSTNode<E> node = root;
+		while(node != null){
+			int comparison = item.compareTo(node.getData());
+			if(comparison < 0)
+				node = node.getLeft();
+			else if(comparison > 0)
+				node = node.getRight();
+			else
+				break; //found it!
+		}
 		if(node == null)
-			return null; //do nothing, the item is not in the tree
-		else if(item.compareTo(node.getData()) < 0 ) //(item < node.data)
-			node.setLeft(recRemove(node.getLeft(), item)); //node.left = recRemove(node.left, item) //search in the left subtree 
-		else if(item.compareTo(node.getData()) > 0) //(item > node.data)
-			node.setRight(recRemove(node.getRight(), item));//node.right = recRemove ( node.right, item ) //search in the right subtree
-		else //found it!
-			node = remove(node); //remove data stored in node
-		return node;
+			return false; //the item is not in the tree
+		
+		remove(node);
+		size--;
+		modCount++;
+		return true;
 	}
 	
 	/**
-	 * Helper method to recRemove. Once the node to be removed is found through recRemove,
-	 * this remove method actually removes the node from the tree and accounts for any 
-	 * changes this causes in the rest of the tree.
+	 * Helper method to remove. Once the node to be removed is found, this method 
+	 * actually removes the node from the tree and accounts for any changes this 
+	 * causes in the rest of the tree.
 	 * 
-	 * @param node
-	 * @return
-	 */
-	private BSTNode<E> remove(BSTNode<E> node){
-		//handles 1 or no children
-		if(node.getLeft() == null )
-			return node.getRight();
-		if(node.getRight() == null)
-			return node.getRight();
+	 * @param node node whose data should be removed from the tree
+	 */
+	private void remove(BSTNode<E> node){
+		//if 2 children, move the predecessor's data into node and unlink the predecessor instead
+		if(node.getLeft() != null && node.getRight() != null){
+			BSTNode<E> predecessor = node.getLeft();
+			while(predecessor.getRight() != null)
+				predecessor = predecessor.getRight();
+			node.setData(predecessor.getData());
+			node = predecessor;
+		}
 		
-		//otherwise have 2 children
-		E newData = getPredecessor(node); //store data of predecessor
-		//set the data of the node we want to remove to the data of the predecessor
-		node.setData(newData); 
-		node.setLeft(recRemove(node.getLeft(), newData)); //remove the original node for predecessor
-		return node;
+		//node now has 1 or no children; splice it out of the tree
+		BSTNode<E> child = (node.getLeft() != null) ? node.getLeft() : node.getRight();
+		BSTNode<E> parent = node.getParent();
+		if(child != null)
+			child.setParent(parent);
+		replaceChild(parent, node, child);
+		rebalance(parent);
 	}
 	
 	/**
@@ -152,6 +230,28 @@ public class MyBST<E extends Comparable<E>> {
 		}
 	}
 	
+	/**
+	 * Returns the element of this MyBST that is equal to the given item (the element
+	 * for which compareTo returns 0), which may be a different object than the item.
+	 * 
+	 * @param item item to be looked for
+	 * @return the element equal to the item, or null if there is none
+	 * @throws NullPointerException if the item is null
+	 */
+	public E find(E item){
+		BSTNode<E> current = root;
+		while(current != null){
+			int comparison = item.compareTo(current.getData());
+			if(comparison < 0)
+				current = current.getLeft();
+			else if(comparison > 0)
+				current = current.getRight();
+			else
+				return current.getData();
+		}
+		return null;
+	}
+	
 	/**
 	 * Returns true if this set contains the specified element
 	 * 
@@ -162,31 +262,207 @@ public class MyBST<E extends Comparable<E>> {
 	 * @throws NullPointerException if the specified element is null
 	 */
 	public boolean contains(Object o) throws ClassCastException {
-		BSTNode<E> nodeWithItem = new BSTNode<E>((E) o);
-		return contains(nodeWithItem, root); 
+		E item = (E) o;
+		BSTNode<E> currentNode = root;
+		
+		while(currentNode != null){
+			int comparison = item.compareTo(currentNode.getData());
+			//if item < current node, go left
+			if(comparison < 0)
+				currentNode = currentNode.getLeft();
+			//if item > current node, go right
+			else if(comparison > 0)
+				currentNode = currentNode.getRight();
+			//item is the same as current node
+			else
+				return true;
+		}
+		return false;
 	}
 	
 	/**
-	 * Helper method to contains. Searches for desired element in binary search
-	 * tree, and if it is found returns true.
+	 * Walks from the given node up to the root, recomputing the stored information 
+	 * of every node on the way and performing AVL rotations wherever the heights 
+	 * of the two subtrees of a node differ by more than one.
 	 * 
-	 * @param nodeWithItem node containing same data as node being looked for (for 
-	 * comparison purposes)
-	 * @param currentNode current node in search of BST
-	 * @return true if this BST contains the specified element
+	 * @param node lowest node whose subtree changed (may be null)
 	 */
-	private boolean contains (BSTNode<E> nodeWithItem, BSTNode<E> currentNode) {
-		if(currentNode == null) return false;
+	private void rebalance(BSTNode<E> node){
+		while(node != null){
+			update(node);
+			int balance = height(node.getLeft()) - height(node.getRight());
+			
+			//left side too tall
+			if(balance > 1){
+				BSTNode<E> left = node.getLeft();
+				if(height(left.getLeft()) < height(left.getRight()))
+					rotateLeft(left); //left-right case
+				node = rotateRight(node);
+			}
+			//right side too tall
+			else if(balance < -1){
+				BSTNode<E> right = node.getRight();
+				if(height(right.getRight()) < height(right.getLeft()))
+					rotateRight(right); //right-left case
+				node = rotateLeft(node);
+			}
+			node = node.getParent();
+		}
+	}
+	
+	/**
+	 * Recomputes the information stored in the given node from its children. 
+	 * Called whenever the children of the node change.
+	 * 
+	 * @param node node to be updated
+	 */
+	protected void update(BSTNode<E> node){
+		node.setHeight(Math.max(height(node.getLeft()), height(node.getRight())) + 1);
+		node.setSize(size(node.getLeft()) + size(node.getRight()) + 1);
+	}
+	
+	/**
+	 * Rotates the subtree rooted at the given node to the left, so that its right
+	 * child becomes the root of the subtree.
+	 * 
+	 * @param node root of the subtree to be rotated
+	 * @return new root of the subtree
+	 */
+	private BSTNode<E> rotateLeft(BSTNode<E> node){
+		BSTNode<E> pivot = node.getRight();
+		node.setRight(pivot.getLeft());
+		if(pivot.getLeft() != null)
+			pivot.getLeft().setParent(node);
+		pivot.setParent(node.getParent());
+		replaceChild(node.getParent(), node, pivot);
+		pivot.setLeft(node);
+		node.setParent(pivot);
+		update(node);
+		update(pivot);
+		return pivot;
+	}
+	
+	/**
+	 * Rotates the subtree rooted at the given node to the right, so that its left
+	 * child becomes the root of the subtree.
+	 * 
+	 * @param node root of the subtree to be rotated
+	 * @return new root of the subtree
+	 */
+	private BSTNode<E> rotateRight(BSTNode<E> node){
+		BSTNode<E> pivot = node.getLeft();
+		node.setLeft(pivot.getRight());
+		if(pivot.getRight() != null)
+			pivot.getRight().setParent(node);
+		pivot.setParent(node.getParent());
+		replaceChild(node.getParent(), node, pivot);
+		pivot.setRight(node);
+		node.setParent(pivot);
+		update(node);
+		update(pivot);
+		return pivot;
+	}
 	
-		//if item < current node, go left
-		else if(nodeWithItem.compareTo(currentNode) < 0)
-			return contains(nodeWithItem, currentNode.getLeft());
-		//if item > current node, go right
-		else if(nodeWithItem.compareTo(currentNode) > 0)
-			return contains(nodeWithItem, currentNode.getRight());
-		//item is the same as current node
+	/**
+	 * Replaces the reference the parent holds to oldChild with a reference to 
+	 * newChild. If parent is null, oldChild was the root and newChild becomes 
+	 * the new root.
+	 * 
+	 * @param parent parent of oldChild (or null)
+	 * @param oldChild current child of parent
+	 * @param newChild node that takes the place of oldChild (may be null)
+	 */
+	private void replaceChild(BSTNode<E> parent, BSTNode<E> oldChild, BSTNode<E> newChild){
+		if(parent == null)
+			root = newChild;
+		else if(parent.getLeft() == oldChild)
+			parent.setLeft(newChild);
 		else
-			return true;
+			parent.setRight(newChild);
+	}
+	
+	/**
+	 * Returns the height of the subtree rooted at the given node
+	 * 
+	 * @param node root of the subtree (may be null)
+	 * @return height of the subtree, or 0 if node is null
+	 */
+	protected static int height(BSTNode<?> node){
+		return (node == null) ? 0 : node.getHeight();
+	}
+	
+	/**
+	 * Returns the number of nodes in the subtree rooted at the given node
+	 * 
+	 * @param node root of the subtree (may be null)
+	 * @return number of nodes in the subtree, or 0 if node is null
+	 */
+	protected static int size(BSTNode<?> node){
+		return (node == null) ? 0 : node.getSize();
+	}
+	
+	/**
+	 * Returns the rank of the given item, which is the number of elements in this 
+	 * MyBST that are strictly less than the item. The item does not need to be 
+	 * in the tree.
+	 * 
+	 * @param item item whose rank is requested
+	 * @return number of elements in this MyBST less than item
+	 * @throws NullPointerException if the item is null
+	 */
+	public int rank(E item){
+		return countBelow(item, false);
+	}
+	
+	/**
+	 * Returns the number of elements in this MyBST that are greater than or equal to 
+	 * low and less than or equal to high. Neither bound needs to be in the tree.
+	 * 
+	 * @param low lower bound of the range (inclusive)
+	 * @param high upper bound of the range (inclusive)
+	 * @return number of elements in the range, or 0 if low is greater than high
+	 * @throws NullPointerException if either bound is null
+	 */
+	public int countInRange(E low, E high){
+		if(low.compareTo(high) > 0)
+			return 0;
+		return countBelow(high, true) - countBelow(low, false);
+	}
+	
+	/**
+	 * Helper method to rank and countInRange. Counts the elements less than the 
+	 * given item (or less than or equal to it) with a single descent, adding up the 
+	 * sizes of the left subtrees that are passed over on the way down.
+	 * 
+	 * @param item item to compare elements against
+	 * @param inclusive true if elements equal to item should be counted as well
+	 * @return number of elements less than (or equal to) item
+	 */
+	private int countBelow(E item, boolean inclusive){
+		int count = 0;
+		BSTNode<E> current = root;
+		while(current != null){
+			int comparison = item.compareTo(current.getData());
+			//current node and its left subtree are below item, go right
+			if(comparison > 0 || (comparison == 0 && inclusive)){
+				count += size(current.getLeft()) + 1;
+				current = current.getRight();
+			}
+			//otherwise only part of the left subtree can be below item, go left
+			else
+				current = current.getLeft();
+		}
+		return count;
+	}
+	
+	/**
+	 * Returns the height of this MyBST (the number of nodes on the longest path
+	 * from the root to a leaf)
+	 * 
+	 * @return height of this BST, or 0 if it is empty
+	 */
+	public int height(){
+		return height(root);
 	}
 	
 	/**
@@ -234,41 +510,77 @@ public class MyBST<E extends Comparable<E>> {
 	}
 	
 	/**
-	 * Returns a string representation of the MyBST object in the form of a in-order
-	 * listing of the elements contained in the MyBST (obtained through an inorder 
-	 * traversal of the BST).
+	 * Returns a list of all the elements in this MyBST in ascending order
 	 * 
-	 * @return string representation of the MyBST object (bracketed list of elements)
+	 * @return list of the elements in ascending order
 	 */
-	public String toString(){
-		String result = "[";
-		result += recInOrderTraversal(root);
-		result += "]";
-		return result;
+	public List<E> toList(){
+		ArrayList<E> elements = new ArrayList<E>(size);
+		for(E element : this)
+			elements.add(element);
+		return elements;
 	}
 	
 	/**
-	 * Recursive helper method to toString method. Completes the inorder traversal of 
-	 * the tree, adding the elements of the tree to the string list of the items. 
+	 * Returns an iterator over the elements of this MyBST in ascending order. The 
+	 * iterator does not support remove, and it throws ConcurrentModificationException 
+	 * if the MyBST is changed while it is in use.
 	 * 
-	 * @param current node in traversal
-	 * @return String list of elements (as bracketed list)
+	 * @return iterator over the elements in ascending order
 	 */
-	private String recInOrderTraversal(BSTNode<E> current){
-		StringBuilder newPart = new StringBuilder(); //will store new part to be added to MyBST
-		
-		if(current != null){
-			//traverse left side of MyBST
-			newPart.append(recInOrderTraversal(current.getLeft()));
-			//process current node
-			newPart.append(String.valueOf(current));
-			//unless current item is the last item, add comma between elements
-			if(!(current.getData().compareTo(last()) == 0))
-				newPart.append(", ");
-			//traverse right side of MyBST
-			newPart.append(recInOrderTraversal(current.getRight()));
+	@Override
+	public Iterator<E> iterator(){
+		return new InOrderIterator();
+	}
+	
+	/**
+	 * Returns a spliterator over the elements of this MyBST in ascending order. It 
+	 * knows its exact size, and it splits by rank: each half covers a range of ranks 
+	 * and finds its first element with a single descent using the subtree sizes, so 
+	 * splitting takes logarithmic time and the halves are always the same size.
+	 * 
+	 * @return spliterator over the elements in ascending order
+	 */
+	@Override
+	public Spliterator<E> spliterator(){
+		return new RankSpliterator(0, size, modCount);
+	}
+	
+	/**
+	 * Returns a sequential stream of the elements of this MyBST in ascending order
+	 * 
+	 * @return stream of the elements
+	 */
+	public Stream<E> stream(){
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	/**
+	 * Returns a parallel stream of the elements of this MyBST. The stream is ordered, 
+	 * but parts of it are processed on different threads.
+	 * 
+	 * @return parallel stream of the elements
+	 */
+	public Stream<E> parallelStream(){
+		return StreamSupport.stream(spliterator(), true);
+	}
+	
+	/**
+	 * Returns a string representation of the MyBST object in the form of a in-order
+	 * listing of the elements contained in the MyBST (obtained through an inorder 
+	 * traversal of the BST, in a single pass).
+	 * 
+	 * @return string representation of the MyBST object (bracketed list of elements)
+	 */
+	public String toString(){
+		StringBuilder result = new StringBuilder("[");
+		for(E element : this){
+			//add comma between elements
+			if(result.length() > 1)
+				result.append(", ");
+			result.append(String.valueOf(element));
 		}
-		return newPart.toString(); //add new part to list
+		return result.append("]").toString();
 	}
 	
 	/**
@@ -279,4 +591,165 @@ public class MyBST<E extends Comparable<E>> {
 	public int size(){
 		return size;
 	}
+	
+	/**
+	 * Position in an inorder traversal of the tree, kept as an explicit stack of the 
+	 * nodes whose elements come next: the top of the stack is the next node, and 
+	 * every node below it is the nearest ancestor that is still to be visited. The 
+	 * stack is an array as deep as the tree is tall, so moving forward allocates nothing.
+	 */
+	private class Cursor {
+		private BSTNode<E>[] stack;
+		private int depth;
+		
+		/**
+		 * Creates a cursor positioned at the element with the given rank
+		 * 
+		 * @param rank rank of the first element to be visited (size if there is none)
+		 */
+		Cursor(int rank){
+			//arrays of a generic type can only be created unchecked; the array never leaves the cursor
+			@SuppressWarnings("unchecked")
+			BSTNode<E>[] nodes = (BSTNode<E>[]) new BSTNode<?>[height(root)];
+			stack = nodes;
+			//descend to the element with the given rank, remembering where the descent went left
+			BSTNode<E> current = root;
+			while(current != null){
+				int leftSize = size(current.getLeft());
+				if(rank < leftSize){
+					stack[depth++] = current;
+					current = current.getLeft();
+				} else if(rank == leftSize){
+					stack[depth++] = current;
+					break;
+				} else {
+					rank -= leftSize + 1;
+					current = current.getRight();
+				}
+			}
+		}
+		
+		/**
+		 * Returns true if there are more elements to be visited
+		 * 
+		 * @return true if next can be called
+		 */
+		boolean hasNext(){
+			return depth > 0;
+		}
+		
+		/**
+		 * Returns the next element and moves past it
+		 * 
+		 * @return the next element
+		 */
+		E next(){
+			BSTNode<E> node = stack[--depth];
+			//the elements of the right subtree come next, starting with its leftmost node
+			BSTNode<E> current = node.getRight();
+			while(current != null){
+				stack[depth++] = current;
+				current = current.getLeft();
+			}
+			return node.getData();
+		}
+	}
+	
+	/**
+	 * Iterator over the elements of the tree in ascending order
+	 */
+	private class InOrderIterator implements Iterator<E> {
+		private final Cursor cursor = new Cursor(0);
+		private final int expectedModCount = modCount;
+		
+		@Override
+		public boolean hasNext(){
+			return cursor.hasNext();
+		}
+		
+		@Override
+		public E next(){
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if(!cursor.hasNext())
+				throw new NoSuchElementException();
+			return cursor.next();
+		}
+	}
+	
+	/**
+	 * Spliterator over the elements of the tree whose ranks are in a given range. The 
+	 * cursor is created the first time an element is needed, so splitting before the 
+	 * traversal starts costs only the arithmetic on the range.
+	 */
+	private class RankSpliterator implements Spliterator<E> {
+		private int index; //rank of the next element
+		private final int fence; //rank just after the last element
+		private final int expectedModCount;
+		private Cursor cursor;
+		
+		RankSpliterator(int index, int fence, int expectedModCount){
+			this.index = index;
+			this.fence = fence;
+			this.expectedModCount = expectedModCount;
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super E> action){
+			if(action == null)
+				throw new NullPointerException();
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if(index >= fence)
+				return false;
+			if(cursor == null)
+				cursor = new Cursor(index);
+			index++;
+			action.accept(cursor.next());
+			return true;
+		}
+		
+		@Override
+		public void forEachRemaining(Consumer<? super E> action){
+			if(action == null)
+				throw new NullPointerException();
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if(index >= fence)
+				return;
+			if(cursor == null)
+				cursor = new Cursor(index);
+			for(; index < fence; index++)
+				action.accept(cursor.next());
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+		}
+		
+		@Override
+		public Spliterator<E> trySplit(){
+			int mid = (index + fence) >>> 1;
+			if(mid <= index)
+				return null; //fewer than 2 elements, too small to split
+			//the first half is handed off; this spliterator keeps the second half
+			RankSpliterator prefix = new RankSpliterator(index, mid, expectedModCount);
+			index = mid;
+			cursor = null;
+			return prefix;
+		}
+		
+		@Override
+		public long estimateSize(){
+			return fence - index;
+		}
+		
+		@Override
+		public int characteristics(){
+			return ORDERED | SORTED | DISTINCT | SIZED | SUBSIZED | NONNULL;
+		}
+		
+		@Override
+		public Comparator<? super E> getComparator(){
+			return null; //natural ordering
+		}
+	}
 }
@@ -4,6 +4,17 @@
  * and allows users to search for tree species in NYC from the file. The program prints out 
  * a list of matching species and the popularity of these species in each borough and 
  * NYC as a whole. Program keeps running in a loop until the user enters "quit".
+ * The file can also be a snapshot saved by TreeSnapshot, which loads much faster; 
+ * running the program with "--save-snapshot &lt;file&gt;" after the file name saves one. 
+ * "--apply-delta &lt;file&gt;" applies a file of changes to the census (see 
+ * TreeLoader.applyDelta) after loading, and can be given more than once. 
+ * "--export &lt;file&gt;" writes all of the trees to a CSV, JSON or JSON lines file. 
+ * "--serve &lt;port&gt;" answers queries over HTTP (see TreeServer) instead of asking for them. 
+ * "--batch &lt;file&gt;" answers every species name listed in the file (one per line) and 
+ * writes the results as CSV, or to the file given with "--output &lt;file&gt;" (as a JSON 
+ * array if its name ends in ".json", or as JSON lines if it ends in ".jsonl"). 
+ * "--stats" prints figures about loading and querying (see TreeMetrics) to the standard 
+ * error when the program is done, and publishes them over JMX while it runs.
  * 
  * @author Leila Mardoum
  * @version 4/22/17 
@@ -25,42 +36,91 @@ public class NYCStreetTrees {
 		
 		File file = new File(args[0]);
 		
-		//create Scanner object, but catch exceptions Scanner might throw 
-		Scanner input = null;
-		try{
-			input = new Scanner(file);
-		} catch(Exception e) {
-			System.err.println(e.getMessage()); //print specific error message
+		//optional files to save a snapshot of the loaded trees to and to export them to
+		File snapshotFile = null;
+		File exportFile = null;
+		//optional files of changes to apply after loading, in order
+		ArrayList<File> deltaFiles = new ArrayList<File>();
+		int port = -1; //port to serve the trees on over HTTP, or -1 for the interactive loop
+		//optional file of species names to answer in batch, and file to write the answers to
+		File batchFile = null;
+		File outputFile = null;
+		boolean stats = false; //whether to print the metrics when done
+		for(int i = 1; i < args.length; i += 2){
+			if(args[i].equals("--stats")){
+				stats = true;
+				i--; //the option has no value
+			} else if(i + 1 < args.length && args[i].equals("--save-snapshot")){
+				snapshotFile = new File(args[i + 1]);
+			} else if(i + 1 < args.length && args[i].equals("--apply-delta")){
+				deltaFiles.add(new File(args[i + 1]));
+			} else if(i + 1 < args.length && args[i].equals("--export")){
+				exportFile = new File(args[i + 1]);
+			} else if(i + 1 < args.length && args[i].equals("--serve")){
+				try {
+					port = Integer.parseInt(args[i + 1]);
+				} catch(NumberFormatException e) {
+					System.err.println("Usage Error: the port must be a number");
+					System.exit(1);
+				}
+			} else if(i + 1 < args.length && args[i].equals("--batch")){
+				batchFile = new File(args[i + 1]);
+			} else if(i + 1 < args.length && args[i].equals("--output")){
+				outputFile = new File(args[i + 1]);
+			} else {
+				System.err.println("Usage Error: expected <csv or snapshot file> [--apply-delta <change file>] [--save-snapshot <snapshot file>] [--export <csv, json or jsonl file>] [--serve <port>] [--batch <queries file> [--output <csv, json or jsonl file>]] [--stats]");
+				System.exit(1);
+			}
+		}
+		if(outputFile != null && batchFile == null){
+			System.err.println("Usage Error: --output can only be given with --batch");
 			System.exit(1);
 		}
 		
-		TreeCollection trees = new TreeCollection();
-		input.nextLine(); //skip data headers in file
-		
-		//read file line-by-line
-		while(input.hasNextLine()){
-			String textLine = input.nextLine();
-			ArrayList<String> treeInfo = splitCSVLine(textLine);
-			
-			if(treeInfo.size() != 41)
-				continue; //if there are not 41 data slots, tree is invalid, skip line
-			
-			Tree entry;
+		//load the trees from a snapshot if the file is one, otherwise parse the csv file in parallel,
+		//but catch exceptions reading the file might throw 
+		TreeCollection trees = null;
+		TreeMetrics metrics = TreeMetrics.getShared();
+		if(stats || port >= 0)
+			metrics.register();
+		try{
+			if(TreeSnapshot.isSnapshot(file))
+				trees = TreeSnapshot.load(file);
+			else
+				trees = TreeLoader.load(file);
+			for(File deltaFile : deltaFiles)
+				TreeLoader.applyDelta(trees, deltaFile);
+			metrics.watch(trees);
+			if(snapshotFile != null)
+				TreeSnapshot.save(trees, snapshotFile);
+			if(exportFile != null)
+				export(trees, exportFile);
 			
-			//add tree entry to the TreeList if the entry is valid
-			try {
-				entry = new Tree(Integer.parseInt(treeInfo.get(0)), Integer.parseInt(treeInfo.get(3)), 
-						treeInfo.get(6), treeInfo.get(7), treeInfo.get(9), Integer.parseInt(treeInfo.get(25)), 
-						treeInfo.get(29), Double.parseDouble(treeInfo.get(39)), Double.parseDouble(treeInfo.get(40)));
-			} catch(IllegalArgumentException e) {
-				continue; //if entry invalid, skip line
+			//serve the trees over HTTP instead of asking for species names
+			if(port >= 0){
+				//send responses right away (see TreeServer), unless set on the command line
+				if(System.getProperty("sun.net.httpserver.nodelay") == null)
+					System.setProperty("sun.net.httpserver.nodelay", "true");
+				TreeServer server = new TreeServer(trees, port);
+				server.start();
+				System.out.println("Serving the trees on http://localhost:" + server.getPort());
+				if(stats)
+					System.err.print(metrics.report()); //figures about loading, the rest are on JMX
+				return;
 			}
 			
-			trees.add(entry); //if entry is valid, add entry to list
+			//answer the species names in the batch file instead of asking for them
+			if(batchFile != null){
+				runBatch(trees, batchFile, outputFile);
+				if(stats)
+					System.err.print(metrics.report());
+				return;
+			}
+		} catch(IOException e) {
+			System.err.println(e.getMessage()); //print specific error message
+			System.exit(1);
 		}
 		
-		input.close();
-		
 		//loop that allows user to check popularity of different tree names (or exit program)
 		boolean userWantsToQuit = false;
 		Scanner user = new Scanner(System.in);
@@ -74,9 +134,13 @@ public class NYCStreetTrees {
 			if(userRequest.toLowerCase().contains("quit")){
 				userWantsToQuit = true;
 				user.close();
+				if(stats)
+					System.err.print(metrics.report());
 				continue;
 			} else {
-				int spcCount = trees.getCountByTreeSpecies(userRequest);
+				long start = System.nanoTime();
+				QueryResult result = trees.query(userRequest);
+				int spcCount = result.getSpeciesCount();
 				
 				//if no results, print appropriate message
 				if(spcCount == 0){
@@ -85,7 +149,7 @@ public class NYCStreetTrees {
 					continue;
 				} else { 
 					//otherwise, make a list of matching species, without repeats
-					Collection<String> spcSearchResult = trees.getMatchingSpecies(userRequest);
+					Collection<String> spcSearchResult = result.getMatchingSpecies();
 					System.out.println("All matching species: ");
 					
 					//print out list of matching species
@@ -100,8 +164,9 @@ public class NYCStreetTrees {
 					
 					//for each valid area, print popularity info
 					for(int i = 0; i < validAreas.length; i++){
-						getPopularity(trees, validAreas[i], userRequest);
+						getPopularity(result, validAreas[i]);
 					}
+					metrics.getLatency(TreeMetrics.POPULARITY_REPORT).recordSince(start);
 					
 					System.out.println();
 					continue; 
@@ -110,30 +175,143 @@ public class NYCStreetTrees {
 		}
 	}
 	
+	/**
+	 * Writes all of the trees to the given file, as a JSON array if the file name ends in 
+	 * ".json", as JSON lines if it ends in ".jsonl", and as CSV otherwise
+	 * 
+	 * @param trees TreeCollection to be exported
+	 * @param file file to write the trees to
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void export(TreeCollection trees, File file) throws IOException {
+		String name = file.getName().toLowerCase();
+		ExportFormat format = ExportFormat.CSV;
+		if(name.endsWith(".json"))
+			format = ExportFormat.JSON;
+		else if(name.endsWith(".jsonl"))
+			format = ExportFormat.JSON_LINES;
+		Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"), 1 << 16);
+		try {
+			trees.writeTo(out, format);
+		} finally {
+			out.close();
+		}
+	}
+	
+	/**
+	 * Answers every species name in the given file (one per line, blank lines are skipped) 
+	 * and writes the matching species and the popularity in NYC and each borough for each 
+	 * of them, in the order of the file. The output is CSV with one row per name and area, 
+	 * a JSON array with one object per name if the output file name ends in ".json", or 
+	 * JSON lines with one object per line if it ends in ".jsonl". All of the names are 
+	 * answered together by TreeCollection.queryAll, in one pass over the species. 
+	 * 
+	 * @param trees TreeCollection to be searched
+	 * @param queryFile file listing the species names
+	 * @param outputFile file to write the results to, or null for the standard output (as CSV)
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void runBatch(TreeCollection trees, File queryFile, File outputFile) throws IOException {
+		ArrayList<String> queries = new ArrayList<String>();
+		BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(queryFile), "UTF-8"));
+		try {
+			String line;
+			while((line = in.readLine()) != null){
+				line = line.trim();
+				if(!line.isEmpty())
+					queries.add(line);
+			}
+		} finally {
+			in.close();
+		}
+		List<QueryResult> results = trees.queryAll(queries);
+		
+		boolean json = false; //whether to write one JSON object per name
+		boolean jsonArray = false; //whether the objects are the elements of one JSON array
+		Writer out;
+		if(outputFile == null){
+			out = new BufferedWriter(new OutputStreamWriter(System.out, "UTF-8"), 1 << 16);
+		} else {
+			String name = outputFile.getName().toLowerCase();
+			jsonArray = name.endsWith(".json");
+			json = jsonArray || name.endsWith(".jsonl");
+			out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputFile), "UTF-8"), 1 << 16);
+		}
+		
+		try {
+			String[] validAreas = {"NYC", "Manhattan", "Bronx", "Brooklyn", "Queens", "Staten Island"};
+			StringBuilder line = new StringBuilder();
+			if(jsonArray)
+				out.write('[');
+			else if(!json)
+				out.write("species,area,species_count,total_count,percentage\n");
+			for(int q = 0; q < queries.size(); q++){
+				QueryResult result = results.get(q);
+				line.setLength(0);
+				if(json){
+					if(jsonArray)
+						line.append((q == 0) ? "\n" : ",\n"); //elements separated by commas
+					line.append("{\"species\":");
+					ExportFormat.appendJsonString(line, queries.get(q));
+					line.append(",\"matchingSpecies\":");
+					TreeServer.appendList(line, result.getMatchingSpecies());
+					line.append(",\"areas\":");
+					TreeServer.appendAreas(line, result);
+					line.append('}');
+					if(!jsonArray)
+						line.append('\n');
+				} else {
+					for(String area : validAreas){
+						Borough boro = Borough.fromName(area);
+						ExportFormat.appendCsvField(line, queries.get(q));
+						line.append(',').append(area);
+						if(boro == null){
+							line.append(',').append(result.getSpeciesCount());
+							line.append(',').append(result.getTotalCount());
+							line.append(',').append(String.format(Locale.ROOT, "%.2f", result.getPercentage()));
+						} else {
+							line.append(',').append(result.getSpeciesCount(boro));
+							line.append(',').append(result.getTotalCount(boro));
+							line.append(',').append(String.format(Locale.ROOT, "%.2f", result.getPercentage(boro)));
+						}
+						line.append('\n');
+					}
+				}
+				out.append(line);
+			}
+			if(jsonArray)
+				out.write("\n]\n");
+		} finally {
+			if(outputFile == null)
+				out.flush(); //leave the standard output open
+			else
+				out.close();
+		}
+	}
+	
 	/**
 	 * This method will print species popularity for a given area, formatted in columns. 
 	 * The information printed is the area name, the species abundance in the area, 
 	 * the total trees in the area, and the percentage of trees in the area that are the 
-	 * given species.
+	 * given species. The numbers come from the result of TreeCollection.query for the 
+	 * user request, which is looked up once for all of the areas.
 	 * 
-	 * @param trees TreeList containing values to be searched
+	 * @param result answer to the user species request, with the number of trees of the 
+	 * matching species in each borough
 	 * @param area NYC plus the five boroughs
-	 * @param userRequest the user species request used to find how many trees 
-	 * of the species are in each borough
 	 */
-	public static void getPopularity(TreeCollection trees, String area, String userRequest){
-		
+	public static void getPopularity(QueryResult result, String area){
 		
 		int speciesAmount; //number of trees of specified species in area
 		int totalAmount; //number of trees in area
 		double percentage; //percentage of specified tree species in area
 		
-		//check if area is NYC (must use getTotalNumberOfTrees() instead of getCountByBorough())
+		//check if area is NYC (must use the NYC totals instead of the borough totals)
 		if(area.equals("NYC")){
-			speciesAmount = trees.getCountByTreeSpecies(userRequest);
-			totalAmount = trees.getTotalNumberOfTrees();
+			speciesAmount = result.getSpeciesCount();
+			totalAmount = result.getTotalCount();
 			//check to see if dividing by 0
-			if(trees.getTotalNumberOfTrees() == 0){
+			if(totalAmount == 0){
 				//if no trees, percentage should be 0
 				percentage = 0; 
 			} else {
@@ -141,10 +319,11 @@ public class NYCStreetTrees {
 				percentage = (double) speciesAmount/totalAmount * 100;
 			}
 		} else { 
-			//for all boroughs, do the same but using getCountByBorough() method
-			speciesAmount = trees.getCountByTreeSpeciesBorough(userRequest, area);
-			totalAmount = trees.getCountByBorough(area);
-			if(trees.getCountByBorough(area) == 0){
+			//for all boroughs, do the same but using the borough totals
+			Borough boro = Borough.fromName(area);
+			speciesAmount = (boro == null) ? 0 : result.getSpeciesCount(boro);
+			totalAmount = (boro == null) ? 0 : result.getTotalCount(boro);
+			if(totalAmount == 0){
 				percentage = 0;
 			} else {
 				percentage = (double) speciesAmount/totalAmount * 100;
@@ -0,0 +1,137 @@
+/**
+ * This class is a bounded cache of QueryResult objects, keyed by the normalized query
+ * string. When the cache is full, the result that was used least recently is evicted.
+ * A result is only returned if it was computed from the current version of the
+ * TreeCollection; out of date results are dropped and counted as misses. The cache
+ * counts its hits, misses, and evictions, and is safe to use from multiple threads.
+ * 
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+import java.util.*;
+
+public class QueryCache {
+	private final int capacity;
+	private final LinkedHashMap<String, QueryResult> results;
+	private long hits;
+	private long misses;
+	private long evictions;
+	
+	/**
+	 * Constructor takes the maximum number of results to keep
+	 * 
+	 * @param capacity maximum number of results in the cache
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	public QueryCache(int capacity){
+		if(capacity <= 0)
+			throw new IllegalArgumentException("The cache capacity must be positive");
+		this.capacity = capacity;
+		//access order, so the first entry is always the least recently used one
+		results = new LinkedHashMap<String, QueryResult>(16, 0.75f, true){
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, QueryResult> eldest){
+				if(size() > QueryCache.this.capacity){
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+	
+	/**
+	 * Returns the cached result for the given query if it was computed from the given 
+	 * version of the TreeCollection
+	 * 
+	 * @param query normalized query string
+	 * @param version current version of the TreeCollection
+	 * @return the cached result, or null if there is no up to date result for the query
+	 */
+	public synchronized QueryResult get(String query, long version){
+		QueryResult result = results.get(query);
+		if(result != null && result.getVersion() == version){
+			hits++;
+			return result;
+		}
+		if(result != null)
+			results.remove(query); //out of date
+		misses++;
+		return null;
+	}
+	
+	/**
+	 * Stores the result for the given query, evicting the least recently used result 
+	 * if the cache is full
+	 * 
+	 * @param query normalized query string
+	 * @param result result of the query
+	 */
+	public synchronized void put(String query, QueryResult result){
+		results.put(query, result);
+	}
+	
+	/**
+	 * Removes all results from the cache. The counters are not reset.
+	 */
+	public synchronized void clear(){
+		results.clear();
+	}
+	
+	/**
+	 * Returns the number of results currently in the cache
+	 * 
+	 * @return number of cached results
+	 */
+	public synchronized int size(){
+		return results.size();
+	}
+	
+	/**
+	 * Returns the maximum number of results in the cache
+	 * 
+	 * @return capacity of the cache
+	 */
+	public int getCapacity(){
+		return capacity;
+	}
+	
+	/**
+	 * Returns the number of lookups that found an up to date result
+	 * 
+	 * @return number of hits
+	 */
+	public synchronized long getHits(){
+		return hits;
+	}
+	
+	/**
+	 * Returns the number of lookups that did not find an up to date result
+	 * 
+	 * @return number of misses
+	 */
+	public synchronized long getMisses(){
+		return misses;
+	}
+	
+	/**
+	 * Returns the number of results evicted to make room for new ones
+	 * 
+	 * @return number of evictions
+	 */
+	public synchronized long getEvictions(){
+		return evictions;
+	}
+	
+	/**
+	 * Returns a string representation of the cache with its size and counters
+	 * 
+	 * @return String representation of the cache
+	 */
+	@Override
+	public synchronized String toString(){
+		return "QueryCache: " + results.size() + "/" + capacity + " results, " + hits + " hits, " 
+				+ misses + " misses, " + evictions + " evictions";
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * This class stores the answer to one species query on a TreeCollection: the list of
+ * matching species, the number of trees of those species in NYC and in each borough,
+ * and the total number of trees in NYC and in each borough. These are all the numbers
+ * needed to print the popularity of the species. The version of the TreeCollection the
+ * numbers were computed from is stored as well, so that a cached result can be
+ * recognized as out of date after trees are added or removed.
+ * 
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+import java.util.*;
+
+public class QueryResult {
+	private final Collection<String> matchingSpecies;
+	private final int speciesCount; //trees of the matching species in NYC
+	private final int totalCount; //trees in NYC
+	private final int[] speciesBoroCounts; //trees of the matching species in each borough, by ordinal
+	private final int[] boroCounts; //trees in each borough, by ordinal
+	private final long version;
+	
+	/**
+	 * Constructor takes all of the numbers of the result
+	 * 
+	 * @param matchingSpecies list of matching species names
+	 * @param speciesCount number of trees of the matching species in NYC
+	 * @param totalCount number of trees in NYC
+	 * @param speciesBoroCounts number of trees of the matching species in each borough, by ordinal
+	 * @param boroCounts number of trees in each borough, by ordinal
+	 * @param version version of the TreeCollection the numbers were computed from
+	 */
+	public QueryResult(Collection<String> matchingSpecies, int speciesCount, int totalCount,
+			int[] speciesBoroCounts, int[] boroCounts, long version){
+		this.matchingSpecies = Collections.unmodifiableCollection(matchingSpecies);
+		this.speciesCount = speciesCount;
+		this.totalCount = totalCount;
+		this.speciesBoroCounts = speciesBoroCounts;
+		this.boroCounts = boroCounts;
+		this.version = version;
+	}
+	
+	/**
+	 * Returns the list of matching species names
+	 * 
+	 * @return unmodifiable list of matching species names
+	 */
+	public Collection<String> getMatchingSpecies(){
+		return matchingSpecies;
+	}
+	
+	/**
+	 * Returns the number of trees of the matching species in NYC
+	 * 
+	 * @return number of trees of the matching species
+	 */
+	public int getSpeciesCount(){
+		return speciesCount;
+	}
+	
+	/**
+	 * Returns the number of trees of the matching species in the given borough
+	 * 
+	 * @param boro the borough
+	 * @return number of trees of the matching species in the borough
+	 */
+	public int getSpeciesCount(Borough boro){
+		return speciesBoroCounts[boro.ordinal()];
+	}
+	
+	/**
+	 * Returns the number of trees in NYC
+	 * 
+	 * @return number of trees
+	 */
+	public int getTotalCount(){
+		return totalCount;
+	}
+	
+	/**
+	 * Returns the number of trees in the given borough
+	 * 
+	 * @param boro the borough
+	 * @return number of trees in the borough
+	 */
+	public int getTotalCount(Borough boro){
+		return boroCounts[boro.ordinal()];
+	}
+	
+	/**
+	 * Returns the percentage of trees in NYC that are of the matching species
+	 * 
+	 * @return percentage of trees of the matching species (0 if there are no trees)
+	 */
+	public double getPercentage(){
+		return (totalCount == 0) ? 0 : (double) speciesCount/totalCount * 100;
+	}
+	
+	/**
+	 * Returns the percentage of trees in the given borough that are of the matching species
+	 * 
+	 * @param boro the borough
+	 * @return percentage of trees of the matching species (0 if there are no trees)
+	 */
+	public double getPercentage(Borough boro){
+		int total = boroCounts[boro.ordinal()];
+		return (total == 0) ? 0 : (double) speciesBoroCounts[boro.ordinal()]/total * 100;
+	}
+	
+	/**
+	 * Returns the version of the TreeCollection the numbers were computed from
+	 * 
+	 * @return version of the TreeCollection
+	 */
+	public long getVersion(){
+		return version;
+	}
+}
@@ -0,0 +1,41 @@
+/**
+ * Enumeration of the reasons a line of the census is not turned into a tree. The first
+ * two are found while reading the line, and the others are the checks of the Tree
+ * constructor, in the order it makes them. Each reason has the message the Tree
+ * constructor puts in its IllegalArgumentException.
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+public enum RejectReason {
+	WRONG_COLUMN_COUNT("Wrong number of data slots"),
+	INVALID_NUMBER("Invalid number"),
+	NEGATIVE_ID("The tree id cannot be negative"),
+	NEGATIVE_DIAMETER("The tree diameter cannot be negative"),
+	INVALID_STATUS("Invalid status"),
+	INVALID_HEALTH("Invalid health entry"),
+	NULL_SPECIES("The tree species cannot be null"),
+	INVALID_ZIP("Zipcode must be between 0 and 99999"),
+	NULL_BOROUGH("The borough name cannot be null"),
+	INVALID_BOROUGH("Not a valid NYC borough");
+
+	private final String message;
+
+	/**
+	 * Constructor takes the message describing the reason
+	 * @param message message describing the reason
+	 */
+	private RejectReason(String message){
+		this.message = message;
+	}
+
+	/**
+	 * Returns the message describing the reason
+	 *
+	 * @return the message
+	 */
+	public String getMessage(){
+		return message;
+	}
+}
@@ -0,0 +1,359 @@
+/**
+ * This class is a spatial index over the x and y coordinates (state plane, in feet) of a
+ * group of trees. The area covered by the trees is divided into a uniform grid of square
+ * cells, sized so that a cell holds a few trees on average, and the trees are stored cell
+ * by cell in arrays, with the trees of each cell next to each other. A query only looks
+ * at the cells that overlap the area it asks about, so it takes time proportional to the
+ * number of trees near that area instead of the number of trees in the index.
+ * The index answers three kinds of questions, each optionally restricted to one species:
+ * the trees within a distance of a point, the trees inside a rectangle, and the trees
+ * nearest to a point. The index does not change once it is built; trees whose
+ * coordinates are not finite numbers are left out of it.
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+import java.util.*;
+
+public class SpatialIndex {
+
+	//average number of trees per cell the grid is sized for
+	private static final int TREES_PER_CELL = 16;
+	//largest number of cells along either side of the grid
+	private static final int MAX_CELLS_PER_SIDE = 4096;
+	//species filter that matches every tree
+	private static final int ANY_SPECIES = -1;
+	//species filter that matches no tree
+	private static final int NO_SPECIES = -2;
+
+	private final int size;
+	private final double minX;
+	private final double minY;
+	private final double cellSize;
+	private final int columns;
+	private final int rows;
+	//the trees of cell c (column + row * columns) are at indices cellStart[c] up to cellStart[c + 1]
+	private final int[] cellStart;
+	private final double[] xCoord;
+	private final double[] yCoord;
+	private final int[] speciesId;
+	private final Tree[] trees;
+
+	/**
+	 * Constructor that builds the index over the given trees
+	 *
+	 * @param source trees to be indexed
+	 */
+	public SpatialIndex(Iterable<? extends Tree> source){
+		ArrayList<Tree> located = new ArrayList<Tree>();
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for(Tree t : source){
+			double x = t.getXCoord();
+			double y = t.getYCoord();
+			if(Double.isInfinite(x) || Double.isNaN(x) || Double.isInfinite(y) || Double.isNaN(y))
+				continue; //cannot be placed in the grid
+			located.add(t);
+			minX = Math.min(minX, x);
+			minY = Math.min(minY, y);
+			maxX = Math.max(maxX, x);
+			maxY = Math.max(maxY, y);
+		}
+		size = located.size();
+
+		//choose square cells that hold TREES_PER_CELL trees on average
+		double width = (size == 0) ? 0 : maxX - minX;
+		double height = (size == 0) ? 0 : maxY - minY;
+		double cells = Math.max(1.0, (double) size / TREES_PER_CELL);
+		double side;
+		if(width > 0 && height > 0)
+			side = Math.sqrt(width * height / cells);
+		else
+			side = Math.max(width, height) / cells; //trees on a line (or a single point)
+		side = Math.max(side, Math.max(width, height) / MAX_CELLS_PER_SIDE);
+		if(!(side > 0))
+			side = 1.0;
+		this.minX = (size == 0) ? 0 : minX;
+		this.minY = (size == 0) ? 0 : minY;
+		cellSize = side;
+		columns = (int) Math.min(MAX_CELLS_PER_SIDE, Math.floor(width / side) + 1);
+		rows = (int) Math.min(MAX_CELLS_PER_SIDE, Math.floor(height / side) + 1);
+
+		//count the trees in every cell, then place them cell by cell
+		int[] cellOf = new int[size];
+		cellStart = new int[columns * rows + 1];
+		for(int i = 0; i < size; i++){
+			Tree t = located.get(i);
+			cellOf[i] = column(t.getXCoord()) + row(t.getYCoord()) * columns;
+			cellStart[cellOf[i] + 1]++;
+		}
+		for(int c = 0; c < columns * rows; c++)
+			cellStart[c + 1] += cellStart[c];
+
+		int[] next = Arrays.copyOf(cellStart, columns * rows);
+		xCoord = new double[size];
+		yCoord = new double[size];
+		speciesId = new int[size];
+		trees = new Tree[size];
+		for(int i = 0; i < size; i++){
+			Tree t = located.get(i);
+			int position = next[cellOf[i]]++;
+			xCoord[position] = t.getXCoord();
+			yCoord[position] = t.getYCoord();
+			speciesId[position] = t.getSpeciesId();
+			trees[position] = t;
+		}
+	}
+
+	/**
+	 * Returns the number of trees in the index
+	 *
+	 * @return number of trees
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Returns all trees that are at most the given distance away from the given point,
+	 * in no particular order
+	 *
+	 * @param x x coordinate of the point (ft)
+	 * @param y y coordinate of the point (ft)
+	 * @param radius largest distance from the point (ft)
+	 * @param species species name the trees must have (ignoring the case), or null for
+	 * trees of any species
+	 * @return list of the trees within the distance
+	 */
+	public List<Tree> withinRadius(double x, double y, double radius, String species){
+		ArrayList<Tree> result = new ArrayList<Tree>();
+		int spc = speciesFilter(species);
+		if(spc == NO_SPECIES || !(radius >= 0) || size == 0)
+			return result;
+
+		double radiusSquared = radius * radius;
+		int firstColumn = column(x - radius), lastColumn = column(x + radius);
+		int firstRow = row(y - radius), lastRow = row(y + radius);
+		for(int r = firstRow; r <= lastRow; r++){
+			for(int c = firstColumn; c <= lastColumn; c++){
+				int cell = c + r * columns;
+				for(int i = cellStart[cell]; i < cellStart[cell + 1]; i++){
+					double dx = xCoord[i] - x;
+					double dy = yCoord[i] - y;
+					if(dx * dx + dy * dy <= radiusSquared && (spc == ANY_SPECIES || speciesId[i] == spc))
+						result.add(trees[i]);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns all trees inside the given rectangle (including its edges), in no
+	 * particular order
+	 *
+	 * @param minX smallest x coordinate of the rectangle (ft)
+	 * @param minY smallest y coordinate of the rectangle (ft)
+	 * @param maxX largest x coordinate of the rectangle (ft)
+	 * @param maxY largest y coordinate of the rectangle (ft)
+	 * @param species species name the trees must have (ignoring the case), or null for
+	 * trees of any species
+	 * @return list of the trees inside the rectangle
+	 */
+	public List<Tree> withinBox(double minX, double minY, double maxX, double maxY, String species){
+		ArrayList<Tree> result = new ArrayList<Tree>();
+		int spc = speciesFilter(species);
+		if(spc == NO_SPECIES || !(minX <= maxX) || !(minY <= maxY) || size == 0)
+			return result;
+
+		int firstColumn = column(minX), lastColumn = column(maxX);
+		int firstRow = row(minY), lastRow = row(maxY);
+		for(int r = firstRow; r <= lastRow; r++){
+			for(int c = firstColumn; c <= lastColumn; c++){
+				int cell = c + r * columns;
+				for(int i = cellStart[cell]; i < cellStart[cell + 1]; i++){
+					if(xCoord[i] >= minX && xCoord[i] <= maxX && yCoord[i] >= minY && yCoord[i] <= maxY
+							&& (spc == ANY_SPECIES || speciesId[i] == spc))
+						result.add(trees[i]);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the k trees nearest to the given point, nearest first. Fewer than k trees
+	 * are returned if the index does not have k trees of the species. The cells are
+	 * searched in rings of growing size around the cell of the point, and the search
+	 * stops as soon as no cell further out can hold a tree nearer than the k-th nearest
+	 * tree found so far.
+	 *
+	 * @param x x coordinate of the point (ft)
+	 * @param y y coordinate of the point (ft)
+	 * @param k number of trees to be found
+	 * @param species species name the trees must have (ignoring the case), or null for
+	 * trees of any species
+	 * @return list of at most k trees, ordered by distance from the point
+	 * @throws IllegalArgumentException if k is not positive
+	 */
+	public List<Tree> nearest(double x, double y, int k, String species){
+		if(k <= 0)
+			throw new IllegalArgumentException("The number of trees must be positive");
+		int spc = speciesFilter(species);
+		if(spc == NO_SPECIES || size == 0 || Double.isNaN(x) || Double.isNaN(y))
+			return new ArrayList<Tree>();
+
+		//max-heap of the nearest trees found so far, farthest at the top
+		int capacity = Math.min(k, size);
+		int[] heap = new int[capacity];
+		double[] distances = new double[capacity];
+		int count = 0;
+
+		int centerColumn = column(x), centerRow = row(y);
+		int maxRing = Math.max(Math.max(centerColumn, columns - 1 - centerColumn), Math.max(centerRow, rows - 1 - centerRow));
+		for(int ring = 0; ring <= maxRing; ring++){
+			//every cell of a ring further out is at least this far from the point
+			double reach = (ring - 1) * cellSize;
+			if(count == capacity && ring > 0 && distances[0] < reach * reach)
+				break;
+
+			for(int r = centerRow - ring; r <= centerRow + ring; r++){
+				if(r < 0 || r >= rows)
+					continue;
+				//only the first and last rows of a ring are whole; the others have just two cells
+				boolean edgeRow = (r == centerRow - ring || r == centerRow + ring);
+				int step = (edgeRow || ring == 0) ? 1 : 2 * ring;
+				for(int c = centerColumn - ring; c <= centerColumn + ring; c += step){
+					if(c < 0 || c >= columns)
+						continue;
+					int cell = c + r * columns;
+					for(int i = cellStart[cell]; i < cellStart[cell + 1]; i++){
+						if(spc != ANY_SPECIES && speciesId[i] != spc)
+							continue;
+						double dx = xCoord[i] - x;
+						double dy = yCoord[i] - y;
+						double distance = dx * dx + dy * dy;
+						if(count < capacity){
+							heap[count] = i;
+							distances[count] = distance;
+							siftUp(heap, distances, count++);
+						} else if(distance < distances[0]){
+							heap[0] = i;
+							distances[0] = distance;
+							siftDown(heap, distances, count);
+						}
+					}
+				}
+			}
+		}
+
+		//empty the heap from the farthest tree to the nearest
+		Tree[] nearest = new Tree[count];
+		for(int n = count - 1; n >= 0; n--){
+			nearest[n] = trees[heap[0]];
+			heap[0] = heap[n];
+			distances[0] = distances[n];
+			siftDown(heap, distances, n);
+		}
+		return new ArrayList<Tree>(Arrays.asList(nearest));
+	}
+
+	/**
+	 * Returns the ordinal of the species the trees must have
+	 *
+	 * @param species species name, or null for any species
+	 * @return ordinal of the species, ANY_SPECIES if species is null, or NO_SPECIES if no tree
+	 * can have the species
+	 */
+	private static int speciesFilter(String species){
+		if(species == null)
+			return ANY_SPECIES;
+		int spc = SpeciesDictionary.getShared().lookup(species);
+		return (spc < 0) ? NO_SPECIES : spc;
+	}
+
+	/**
+	 * Returns the column of the grid that the given x coordinate falls in, or the
+	 * nearest column if it is outside the grid
+	 *
+	 * @param x x coordinate (ft)
+	 * @return column of the grid
+	 */
+	private int column(double x){
+		double c = Math.floor((x - minX) / cellSize);
+		return (int) Math.max(0, Math.min(columns - 1, c));
+	}
+
+	/**
+	 * Returns the row of the grid that the given y coordinate falls in, or the nearest
+	 * row if it is outside the grid
+	 *
+	 * @param y y coordinate (ft)
+	 * @return row of the grid
+	 */
+	private int row(double y){
+		double r = Math.floor((y - minY) / cellSize);
+		return (int) Math.max(0, Math.min(rows - 1, r));
+	}
+
+	/**
+	 * Moves the entry at the given position of the max-heap up until its parent is
+	 * not nearer than it
+	 *
+	 * @param heap indices of the trees in the heap
+	 * @param distances squared distances of the trees in the heap
+	 * @param position position of the entry
+	 */
+	private static void siftUp(int[] heap, double[] distances, int position){
+		while(position > 0){
+			int parent = (position - 1) / 2;
+			if(distances[parent] >= distances[position])
+				return;
+			swap(heap, distances, parent, position);
+			position = parent;
+		}
+	}
+
+	/**
+	 * Moves the entry at the top of the max-heap down until neither of its children is
+	 * farther than it
+	 *
+	 * @param heap indices of the trees in the heap
+	 * @param distances squared distances of the trees in the heap
+	 * @param count number of entries in the heap
+	 */
+	private static void siftDown(int[] heap, double[] distances, int count){
+		int position = 0;
+		while(true){
+			int largest = position;
+			int left = 2 * position + 1;
+			int right = left + 1;
+			if(left < count && distances[left] > distances[largest])
+				largest = left;
+			if(right < count && distances[right] > distances[largest])
+				largest = right;
+			if(largest == position)
+				return;
+			swap(heap, distances, position, largest);
+			position = largest;
+		}
+	}
+
+	/**
+	 * Swaps two entries of the heap
+	 *
+	 * @param heap indices of the trees in the heap
+	 * @param distances squared distances of the trees in the heap
+	 * @param a position of the first entry
+	 * @param b position of the second entry
+	 */
+	private static void swap(int[] heap, double[] distances, int a, int b){
+		int index = heap[a];
+		heap[a] = heap[b];
+		heap[b] = index;
+		double distance = distances[a];
+		distances[a] = distances[b];
+		distances[b] = distance;
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * This class is a dictionary of tree species names. Every distinct species name (ignoring
+ * the case) is given a number, its ordinal, the first time it is seen, and the ordinal
+ * never changes afterwards. Trees store the ordinal of their species instead of their own
+ * copy of the name, so two trees have the same species exactly when their ordinals are
+ * equal. All trees share one dictionary, which is safe to use from multiple threads.
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class SpeciesDictionary {
+
+	//dictionary shared by all Tree objects
+	private static final SpeciesDictionary SHARED = new SpeciesDictionary();
+
+	//ordinal of every spelling of a species name seen so far
+	private final ConcurrentHashMap<String, Integer> bySpelling = new ConcurrentHashMap<String, Integer>();
+	//ordinal of every lowercase species name
+	private final HashMap<String, Integer> byKey = new HashMap<String, Integer>();
+	//name of each species as first seen, and in lowercase, indexed by ordinal
+	private volatile String[] names = new String[64];
+	private volatile String[] keys = new String[64];
+	private volatile int size;
+
+	/**
+	 * Default constructor that creates an empty dictionary
+	 */
+	public SpeciesDictionary(){
+
+	}
+
+	/**
+	 * Returns the dictionary shared by all Tree objects
+	 *
+	 * @return the shared species dictionary
+	 */
+	public static SpeciesDictionary getShared(){
+		return SHARED;
+	}
+
+	/**
+	 * Returns the ordinal of the given species name (ignoring the case), adding the name
+	 * to the dictionary if it is not there yet.
+	 *
+	 * @param name species name
+	 * @return ordinal of the species
+	 * @throws NullPointerException if the name is null
+	 */
+	public int intern(String name){
+		Integer ordinal = bySpelling.get(name);
+		if(ordinal != null)
+			return ordinal;
+
+		synchronized(this){
+			String key = name.toLowerCase(Locale.ROOT);
+			ordinal = byKey.get(key);
+			if(ordinal == null){
+				//new species, give it the next ordinal
+				ordinal = size;
+				if(ordinal == names.length){
+					names = Arrays.copyOf(names, ordinal * 2);
+					keys = Arrays.copyOf(keys, ordinal * 2);
+				}
+				names[ordinal] = name;
+				keys[ordinal] = key;
+				byKey.put(key, ordinal);
+				size = ordinal + 1;
+			}
+			bySpelling.put(name, ordinal);
+			return ordinal;
+		}
+	}
+
+	/**
+	 * Returns the ordinal of the given species name (ignoring the case) without adding
+	 * the name to the dictionary.
+	 *
+	 * @param name species name
+	 * @return ordinal of the species, or -1 if the species is not in the dictionary
+	 */
+	public int lookup(String name){
+		Integer ordinal = bySpelling.get(name);
+		if(ordinal != null)
+			return ordinal;
+		synchronized(this){
+			ordinal = byKey.get(name.toLowerCase(Locale.ROOT));
+		}
+		return (ordinal == null) ? -1 : ordinal;
+	}
+
+	/**
+	 * Returns the name of the species with the given ordinal, spelled as it was first seen
+	 *
+	 * @param ordinal ordinal of the species
+	 * @return name of the species
+	 */
+	public String getName(int ordinal){
+		return names[ordinal];
+	}
+
+	/**
+	 * Returns the name of the species with the given ordinal in lowercase
+	 *
+	 * @param ordinal ordinal of the species
+	 * @return lowercase name of the species
+	 */
+	public String getKey(int ordinal){
+		return keys[ordinal];
+	}
+
+	/**
+	 * Compares two species alphabetically by their names (ignoring the case)
+	 *
+	 * @param ordinal ordinal of the first species
+	 * @param otherOrdinal ordinal of the second species
+	 * @return 0 if the species are the same, a negative integer if the first species comes
+	 * first, and a positive integer if the second species comes first
+	 */
+	public int compare(int ordinal, int otherOrdinal){
+		if(ordinal == otherOrdinal)
+			return 0;
+		String[] keys = this.keys;
+		return keys[ordinal].compareTo(keys[otherOrdinal]);
+	}
+
+	/**
+	 * Returns the number of species in the dictionary
+	 *
+	 * @return number of species
+	 */
+	public int size(){
+		return size;
+	}
+}
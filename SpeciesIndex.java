@@ -0,0 +1,159 @@
+/**
+ * This class is a substring index over a list of species names. It is a suffix array: every
+ * suffix of every name is kept in alphabetical order, so all the suffixes that begin with
+ * a given string (and therefore all the names that contain it) are next to each other and
+ * can be found with a binary search. A search takes time proportional to the length of the
+ * string times the logarithm of the number of suffixes, plus the number of matches, instead
+ * of checking every name. The index does not change once it is built.
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+import java.util.*;
+
+public class SpeciesIndex {
+
+	//separates the names in the text; it comes before every other character
+	private static final char SEPARATOR = '\u0000';
+
+	private final int nameCount;
+	//all of the names, each followed by the separator
+	private final String text;
+	//index of the name that each position of the text belongs to
+	private final int[] owner;
+	//positions in the text where the suffixes begin, in alphabetical order of the suffixes
+	private final int[] suffixes;
+
+	/**
+	 * Constructor that builds the index over the given names. The names are matched
+	 * exactly as given, so they should already be in lowercase if the searches are meant
+	 * to ignore the case.
+	 *
+	 * @param names names to be indexed; a name's index in this list is what find returns
+	 */
+	public SpeciesIndex(List<String> names){
+		nameCount = names.size();
+
+		StringBuilder builder = new StringBuilder();
+		int suffixCount = 0;
+		for(String name : names){
+			builder.append(name).append(SEPARATOR);
+			suffixCount += name.length();
+		}
+		text = builder.toString();
+
+		owner = new int[text.length()];
+		Integer[] starts = new Integer[suffixCount];
+		int position = 0;
+		int count = 0;
+		for(int i = 0; i < nameCount; i++){
+			int length = names.get(i).length();
+			for(int j = 0; j <= length; j++){
+				owner[position + j] = i;
+				if(j < length)
+					starts[count++] = position + j;
+			}
+			position += length + 1;
+		}
+
+		//sort the suffixes alphabetically, comparing up to the end of their names
+		Arrays.sort(starts, new Comparator<Integer>(){
+			public int compare(Integer a, Integer b){
+				return compareSuffixes(a, b);
+			}
+		});
+		suffixes = new int[suffixCount];
+		for(int i = 0; i < suffixCount; i++)
+			suffixes[i] = starts[i];
+	}
+
+	/**
+	 * Returns the indices of all the names that contain the given string, in ascending
+	 * order and without repeats. Every name contains the empty string.
+	 *
+	 * @param query string to search for
+	 * @return indices of the matching names in ascending order
+	 */
+	public int[] find(String query){
+		if(query.isEmpty()){
+			int[] all = new int[nameCount];
+			for(int i = 0; i < nameCount; i++)
+				all[i] = i;
+			return all;
+		}
+		if(query.indexOf(SEPARATOR) >= 0)
+			return new int[0]; //no name contains the separator
+
+		//binary search for the first suffix that is not less than the query
+		int low = 0;
+		int high = suffixes.length;
+		while(low < high){
+			int mid = (low + high) >>> 1;
+			if(compareToQuery(suffixes[mid], query) < 0)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+
+		//every suffix from there on that begins with the query belongs to a matching name
+		BitSet matches = new BitSet(nameCount);
+		for(int i = low; i < suffixes.length && text.startsWith(query, suffixes[i]); i++)
+			matches.set(owner[suffixes[i]]);
+
+		int[] result = new int[matches.cardinality()];
+		int count = 0;
+		for(int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1))
+			result[count++] = i;
+		return result;
+	}
+
+	/**
+	 * Returns the number of names in the index
+	 *
+	 * @return number of names
+	 */
+	public int size(){
+		return nameCount;
+	}
+
+	/**
+	 * Compares the suffixes that begin at the two positions of the text alphabetically,
+	 * stopping at the end of the shorter one's name
+	 *
+	 * @param a position of the first suffix
+	 * @param b position of the second suffix
+	 * @return negative if the first suffix comes first, positive if the second suffix
+	 * comes first, or 0 if they are the same
+	 */
+	private int compareSuffixes(int a, int b){
+		while(true){
+			char charA = text.charAt(a);
+			char charB = text.charAt(b);
+			if(charA != charB)
+				return charA - charB;
+			if(charA == SEPARATOR)
+				return 0;
+			a++;
+			b++;
+		}
+	}
+
+	/**
+	 * Compares the beginning of the suffix at the given position of the text with the
+	 * query alphabetically. A suffix that begins with the query counts as equal to it.
+	 *
+	 * @param position position of the suffix
+	 * @param query string to compare with
+	 * @return negative if the suffix comes before the query, 0 if it begins with the
+	 * query, or positive if it comes after the query
+	 */
+	private int compareToQuery(int position, String query){
+		for(int i = 0; i < query.length(); i++){
+			char c = text.charAt(position + i);
+			if(c != query.charAt(i))
+				return c - query.charAt(i); //the separator ends the suffix, and it is less than any character
+		}
+		return 0;
+	}
+}
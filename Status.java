@@ -0,0 +1,64 @@
+/**
+ * Enumeration of the status of a tree: alive, standing dead, or a stump. Trees whose 
+ * status was not recorded have the status NONE. The statuses can be looked up by name 
+ * (ignoring the case).
+ * 
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+public enum Status {
+	NONE(""),
+	ALIVE("Alive"),
+	DEAD("Dead"),
+	STUMP("Stump");
+	
+	//all statuses, in the order of their ordinals
+	private static final Status[] STATUSES = values();
+	
+	private final String name;
+	
+	/**
+	 * Constructor takes the name of the status
+	 * @param name name of the status
+	 */
+	private Status(String name){
+		this.name = name;
+	}
+	
+	/**
+	 * Returns the name of the status
+	 * 
+	 * @return the name of the status (empty string for NONE)
+	 */
+	public String getName(){
+		return name;
+	}
+	
+	/**
+	 * Returns the status with the given name (ignoring the case). A null or empty name
+	 * means the status was not recorded.
+	 * 
+	 * @param name name of the status
+	 * @return the status with the given name, or null if it is not a valid status
+	 */
+	public static Status fromName(String name){
+		if(name == null || name.trim().isEmpty())
+			return NONE;
+		for(Status s : STATUSES){
+			if(s.name.equalsIgnoreCase(name))
+				return s;
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns the status with the given ordinal
+	 * 
+	 * @param ordinal ordinal of the status, between 0 and 3
+	 * @return the status with the given ordinal
+	 */
+	public static Status fromOrdinal(int ordinal){
+		return STATUSES[ordinal];
+	}
+}
@@ -1,5 +1,12 @@
 
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+
 public class TestClass {
+	//number of checks that failed so far
+	private static int failures = 0;
+
 	public static void main(String[] args) {
 		Tree t1 = new Tree(123, 456, "alIVe", "Fair", "birch", 99, "MaNhattan", 13.2, 2.39);
 		Tree t2 = new Tree(560, 456, "alIve", "FaiR", "oAk", 2299, "Brooklyn", 1.23, 2.39);
@@ -11,5 +18,475 @@ public class TestClass {
 		tc.add(t3);
 		
 		System.out.println(tc.toString());
+
+		//checks print a line for every failure, and the program exits with status 1 if any failed
+		try {
+			checkDelta();
+		} catch(IOException e) {
+			fail("delta: cannot use temporary files: " + e.getMessage());
+		}
+		try {
+			checkLoaders();
+		} catch(IOException e) {
+			fail("loaders: cannot use temporary files: " + e.getMessage());
+		}
+		try {
+			checkSnapshot();
+		} catch(IOException e) {
+			fail("snapshot: cannot use temporary files: " + e.getMessage());
+		}
+		try {
+			checkStore();
+		} catch(IOException e) {
+			fail("store: cannot use temporary files: " + e.getMessage());
+		}
+		checkIdIndex();
+		checkNumberParsers();
+		if(failures > 0){
+			System.err.println(failures + " checks failed");
+			System.exit(1);
+		}
+		System.out.println("All checks passed");
+	}
+
+	/**
+	 * Counts a failed check unless the condition holds
+	 *
+	 * @param condition condition that should hold
+	 * @param what description of the check, printed if it failed
+	 */
+	private static void check(boolean condition, String what){
+		if(!condition)
+			fail(what);
+	}
+
+	/**
+	 * Counts and prints a failed check
+	 *
+	 * @param what description of the check
+	 */
+	private static void fail(String what){
+		failures++;
+		System.err.println("FAILED: " + what);
+	}
+
+	/**
+	 * Applies a file of changes to a generated census with TreeLoader.applyDelta, and
+	 * checks that the result answers queries like a fresh load of the census with the
+	 * same changes made to its lines: the same trees by id, the same counts of every
+	 * query in NYC and in each borough, and the same counts by zip code. The changes
+	 * delete, update and add trees, delete some trees twice or that were never there,
+	 * and include lines that are not valid.
+	 *
+	 * @throws IOException if the temporary files cannot be written
+	 */
+	private static void checkDelta() throws IOException {
+		String[] lines = Benchmark.generateLines(3000, "random");
+		Random random = new Random(22);
+
+		//lines of the census by tree id, before the changes and after them
+		LinkedHashMap<Integer, String> census = new LinkedHashMap<Integer, String>();
+		for(int i = 0; i < 2000; i++)
+			census.put(lineId(lines[i]), lines[i]);
+		LinkedHashMap<Integer, String> changed = new LinkedHashMap<Integer, String>(census);
+		List<Integer> ids = new ArrayList<Integer>(census.keySet());
+
+		List<String> delta = new ArrayList<String>();
+		int expected = 0; //number of changes applyDelta should report
+		for(int i = 0; i < 300; i++){
+			int id = ids.get(random.nextInt(ids.size())); //some are picked twice
+			delta.add("delete," + id);
+			if(changed.remove(id) != null)
+				expected++;
+		}
+		for(int i = 0; i < 300; i++){
+			//same id, with the species, borough and everything else of another line
+			int id = ids.get(random.nextInt(ids.size()));
+			String donor = lines[random.nextInt(lines.length)];
+			String line = id + donor.substring(donor.indexOf(','));
+			delta.add("update," + line);
+			changed.put(id, line);
+			expected++;
+		}
+		for(int i = 2000; i < lines.length; i += 2){
+			delta.add("add," + lines[i]);
+			changed.put(lineId(lines[i]), lines[i]);
+			expected++;
+		}
+		delta.add("delete,999999"); //no such tree
+		delta.add("delete,not a number");
+		delta.add("update,1,2,3");
+		delta.add("rename,1");
+
+		File censusFile = writeTemp("census", census.values());
+		File deltaFile = writeTemp("delta", delta);
+		File changedFile = writeTemp("changed", changed.values());
+		TreeCollection updated = TreeLoader.load(censusFile);
+		int applied = TreeLoader.applyDelta(updated, deltaFile);
+		TreeCollection fresh = TreeLoader.load(changedFile);
+
+		check(applied == expected, "delta: applied " + applied + " changes, expected " + expected);
+		check(updated.size() == fresh.size(), "delta: " + updated.size() + " trees, fresh load has " + fresh.size());
+
+		List<String> queries = new ArrayList<String>(Arrays.asList(Benchmark.QUERIES));
+		queries.add(""); //matches every species
+		for(String query : queries){
+			QueryResult a = updated.query(query);
+			QueryResult b = fresh.query(query);
+			check(new TreeSet<String>(a.getMatchingSpecies()).equals(new TreeSet<String>(b.getMatchingSpecies())),
+					"delta: species matching \"" + query + "\"");
+			check(a.getSpeciesCount() == b.getSpeciesCount() && a.getTotalCount() == b.getTotalCount(),
+					"delta: counts of \"" + query + "\" in NYC");
+			for(Borough boro : Borough.values()){
+				check(a.getSpeciesCount(boro) == b.getSpeciesCount(boro) && a.getTotalCount(boro) == b.getTotalCount(boro),
+						"delta: counts of \"" + query + "\" in " + boro.getName());
+				check(updated.getCountByBorough(boro.getName()) == fresh.getCountByBorough(boro.getName()),
+						"delta: total of " + boro.getName());
+			}
+		}
+
+		for(Tree t : fresh){
+			check(updated.getCountByZip(t.getZip()) == fresh.getCountByZip(t.getZip()), "delta: count of zip code " + t.getZipCode());
+			Tree u = updated.getById(t.getTreeId());
+			check(t.equals(u) && u.getBorough() == t.getBorough() && u.getZip() == t.getZip() && u.getDiameter() == t.getDiameter(),
+					"delta: getById(" + t.getTreeId() + ")");
+		}
+		for(int id : ids){
+			if(!changed.containsKey(id))
+				check(updated.getById(id) == null, "delta: getById(" + id + ") of a deleted tree");
+		}
+	}
+
+	/**
+	 * Checks that TreeLoader.load, which parses the bytes of the file in parallel chunks,
+	 * loads the same trees as TreeLoader.loadSequential, which splits every line with
+	 * NYCStreetTrees.splitCSVLine. The lines of the file are generated, then changed at
+	 * random: species with quoted commas and non-ASCII letters, quoted and padded slots,
+	 * numbers that are not valid, too many or too few slots, and repeated tree ids. Lines
+	 * end in "\n", "\r\n" or "\r", and a long slot makes the file large enough to be split
+	 * into several chunks.
+	 *
+	 * @throws IOException if the temporary file cannot be written
+	 */
+	private static void checkLoaders() throws IOException {
+		String[] lines = Benchmark.generateLines(12000, "random");
+		Random random = new Random(6);
+		String[] species = {"\"Oak, red\"", "\"Maple, \"\"Norway\"\"\"", "Linden \u00f1", "\"Kirschbaum (S\u00fc\u00df), wild\"",
+				"\u9280\u674f", "\u201CPine, white\u201D", " Elm ", "Birch\t", "\u00c9rable", "\"\""};
+		String[] numbers = {"", "1e3", "12a45", "-5", "99999999999", "+7", "\u0663", "0x10", " 42 ", "NaN", "Infinity", "1.5f", "--1"};
+		String padding = new String(new char[300]).replace('\0', 'x'); //plain, so the line can still be parsed as bytes
+		String[] endings = {"\n", "\r\n", "\r"};
+
+		StringBuilder text = new StringBuilder("header\n");
+		for(String line : lines){
+			String[] slots = line.split(",", -1);
+			switch(random.nextInt(8)){
+				case 0: slots[9] = species[random.nextInt(species.length)]; break;
+				case 1: slots[29] = "\"" + slots[29] + "\""; break;
+				case 2: slots[new int[] {0, 3, 25, 39, 40}[random.nextInt(5)]] = numbers[random.nextInt(numbers.length)]; break;
+				case 3: slots[random.nextInt(slots.length)] += ","; break;
+				case 4: slots[random.nextInt(slots.length)] = "  " + slots[random.nextInt(slots.length)] + " \t"; break;
+				case 5: slots[0] = Integer.toString(random.nextInt(lines.length)); break; //some ids are repeated
+				default: break;
+			}
+			slots[1] = padding;
+			StringBuilder joined = new StringBuilder(slots[0]);
+			for(int i = 1; i < slots.length; i++)
+				joined.append(',').append(slots[i]);
+			if(random.nextInt(50) == 0)
+				joined.setLength(joined.lastIndexOf(",")); //one slot too few
+			text.append(joined).append(endings[random.nextInt(endings.length)]);
+		}
+
+		File file = File.createTempFile("loaders", ".csv");
+		file.deleteOnExit();
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(text.toString().getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+		TreeCollection parallel = TreeLoader.load(file);
+		TreeCollection sequential = TreeLoader.loadSequential(file);
+
+		check(file.length() > (1 << 22), "loaders: file of " + file.length() + " bytes is too small to be split");
+		check(parallel.size() == sequential.size() && parallel.size() > lines.length / 2,
+				"loaders: load has " + parallel.size() + " trees, loadSequential has " + sequential.size());
+		Iterator<Tree> other = parallel.iterator();
+		for(Tree t : sequential){
+			Tree u = other.hasNext() ? other.next() : null;
+			if(u == null || !t.equals(u) || u.getDiameter() != t.getDiameter() || u.getZip() != t.getZip()
+					|| u.getBorough() != t.getBorough() || u.getStatus() != t.getStatus() || u.getHealth() != t.getHealth()
+					|| !u.getTreeSpecies().equals(t.getTreeSpecies())
+					|| Double.compare(u.getXCoord(), t.getXCoord()) != 0 || Double.compare(u.getYCoord(), t.getYCoord()) != 0){
+				fail("loaders: tree " + t.getTreeId() + " differs");
+				break; //the trees after it are usually out of step too
+			}
+		}
+	}
+
+	/**
+	 * Saves a snapshot of a generated census with some of its trees removed, and checks
+	 * that loading it gives a TreeCollection that answers queries like the one that was
+	 * saved: the same trees by id, the same counts of every query in NYC and in each
+	 * borough, and the same counts by zip code and diameter. Saving the loaded collection
+	 * again must give the same bytes. Then checks that TreeSnapshot.load and
+	 * TreeSnapshot.loadStore reject copies of the file that were truncated, had a bit
+	 * flipped, or have the wrong magic number or format version.
+	 *
+	 * @throws IOException if the temporary files cannot be written
+	 */
+	private static void checkSnapshot() throws IOException {
+		TreeCollection saved = TreeLoader.load(writeTemp("snapshot", Arrays.asList(Benchmark.generateLines(3000, "random"))));
+		Random random = new Random(12);
+		for(int id = 0; id < 3000; id += 1 + random.nextInt(10))
+			saved.removeById(id);
+		saved.removeEmptySpecies();
+		File file = File.createTempFile("snapshot", ".snapshot");
+		file.deleteOnExit();
+		TreeSnapshot.save(saved, file);
+		TreeCollection loaded = TreeSnapshot.load(file);
+
+		check(loaded.size() == saved.size(), "snapshot: " + loaded.size() + " trees, saved " + saved.size());
+		List<String> queries = new ArrayList<String>(Arrays.asList(Benchmark.QUERIES));
+		queries.add(""); //matches every species
+		for(String query : queries){
+			QueryResult a = loaded.query(query);
+			QueryResult b = saved.query(query);
+			check(new ArrayList<String>(a.getMatchingSpecies()).equals(new ArrayList<String>(b.getMatchingSpecies())),
+					"snapshot: species matching \"" + query + "\"");
+			check(a.getSpeciesCount() == b.getSpeciesCount() && a.getTotalCount() == b.getTotalCount(),
+					"snapshot: counts of \"" + query + "\" in NYC");
+			check(loaded.getCountByDiameterRange(query, null, 5, 20) == saved.getCountByDiameterRange(query, null, 5, 20),
+					"snapshot: count of \"" + query + "\" by diameter");
+			for(Borough boro : Borough.values()){
+				check(a.getSpeciesCount(boro) == b.getSpeciesCount(boro) && a.getTotalCount(boro) == b.getTotalCount(boro),
+						"snapshot: counts of \"" + query + "\" in " + boro.getName());
+				check(loaded.getCountByBorough(boro.getName()) == saved.getCountByBorough(boro.getName()),
+						"snapshot: total of " + boro.getName());
+			}
+		}
+		for(Tree t : saved){
+			check(loaded.getCountByZip(t.getZip()) == saved.getCountByZip(t.getZip()), "snapshot: count of zip code " + t.getZipCode());
+			Tree u = loaded.getById(t.getTreeId());
+			check(t.equals(u) && u.getBorough() == t.getBorough() && u.getZip() == t.getZip() && u.getDiameter() == t.getDiameter()
+					&& u.getStatus() == t.getStatus() && u.getHealth() == t.getHealth()
+					&& u.getXCoord() == t.getXCoord() && u.getYCoord() == t.getYCoord(), "snapshot: getById(" + t.getTreeId() + ")");
+		}
+		File again = File.createTempFile("snapshot", ".snapshot");
+		again.deleteOnExit();
+		TreeSnapshot.save(loaded, again);
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		check(Arrays.equals(Files.readAllBytes(again.toPath()), bytes), "snapshot: saving the loaded trees gives different bytes");
+
+		File damaged = File.createTempFile("damaged", ".snapshot");
+		damaged.deleteOnExit();
+		for(int length : new int[] {0, 3, 12, bytes.length / 2, bytes.length - 8, bytes.length - 1}){
+			Files.write(damaged.toPath(), Arrays.copyOf(bytes, length));
+			checkRejected(damaged, "snapshot truncated to " + length + " bytes");
+		}
+		int[] positions = {0, 5, 8, 13, 21, bytes.length / 2, bytes.length - 9, bytes.length - 1};
+		for(int i = 0; i < 40; i++){
+			int position = (i < positions.length) ? positions[i] : random.nextInt(bytes.length);
+			byte[] flipped = bytes.clone();
+			flipped[position] ^= 1 << random.nextInt(8);
+			Files.write(damaged.toPath(), flipped);
+			checkRejected(damaged, "snapshot with a bit flipped at byte " + position);
+		}
+		byte[] version = bytes.clone();
+		version[7]++; //last byte of the format version
+		Files.write(damaged.toPath(), version);
+		checkRejected(damaged, "snapshot of another format version");
+	}
+
+	/**
+	 * Checks that TreeSnapshot.load and TreeSnapshot.loadStore both throw an IOException
+	 * for the given file
+	 *
+	 * @param file file that is not a valid snapshot
+	 * @param what description of the file, printed if it was not rejected
+	 */
+	private static void checkRejected(File file, String what){
+		try {
+			TreeSnapshot.load(file);
+			fail("snapshot: load accepted a " + what);
+		} catch(IOException e) {
+			//expected
+		}
+		try {
+			TreeSnapshot.loadStore(file);
+			fail("snapshot: loadStore accepted a " + what);
+		} catch(IOException e) {
+			//expected
+		}
+	}
+
+	/**
+	 * Checks that a TreeStore answers the queries of the TreeCollection it was built from:
+	 * the counts by species, by borough and by species and borough, and the matching
+	 * species. The TreeStore is built from the TreeCollection, from a list of its trees,
+	 * and from a snapshot of it. Also checks that a list with two trees of the same id
+	 * keeps only the first one, as TreeCollection.addAll does.
+	 *
+	 * @throws IOException if the temporary files cannot be written
+	 */
+	private static void checkStore() throws IOException {
+		TreeCollection trees = TreeLoader.load(writeTemp("store", Arrays.asList(Benchmark.generateLines(3000, "random"))));
+		File snapshot = File.createTempFile("store", ".snapshot");
+		snapshot.deleteOnExit();
+		TreeSnapshot.save(trees, snapshot);
+		ArrayList<Tree> list = new ArrayList<Tree>();
+		for(Tree t : trees)
+			list.add(t);
+		Collections.shuffle(list, new Random(7));
+
+		List<String> queries = new ArrayList<String>(Arrays.asList(Benchmark.QUERIES));
+		queries.add(""); //matches every species
+		TreeStore[] stores = {new TreeStore(trees), new TreeStore(list), TreeSnapshot.loadStore(snapshot)};
+		String[] sources = {"TreeCollection", "list", "snapshot"};
+		for(int i = 0; i < stores.length; i++){
+			String what = "store from " + sources[i] + ": ";
+			check(stores[i].getTotalNumberOfTrees() == trees.size(), what + "number of trees");
+			for(String boro : Benchmark.BOROUGHS)
+				check(stores[i].getCountByBorough(boro) == trees.getCountByBorough(boro), what + "total of " + boro);
+			for(String query : queries){
+				check(lowerCase(stores[i].getMatchingSpecies(query)).equals(lowerCase(trees.getMatchingSpecies(query))),
+						what + "species matching \"" + query + "\"");
+				check(stores[i].getCountByTreeSpecies(query) == trees.getCountByTreeSpecies(query),
+						what + "count of \"" + query + "\"");
+				for(String boro : Benchmark.BOROUGHS)
+					check(stores[i].getCountByTreeSpeciesBorough(query, boro) == trees.getCountByTreeSpeciesBorough(query, boro),
+							what + "count of \"" + query + "\" in " + boro);
+			}
+		}
+
+		List<Tree> sameId = Arrays.asList(new Tree(5, 10, "Alive", "Good", "oak", 10001, "Queens", 1, 1),
+				new Tree(5, 10, "Alive", "Good", "maple", 10001, "Queens", 1, 1));
+		TreeStore store = new TreeStore(sameId);
+		check(store.getTotalNumberOfTrees() == 1 && store.getCountByTreeSpecies("oak") == 1
+				&& store.getCountByTreeSpecies("maple") == 0, "store: keeps the first of two trees with the same id");
+	}
+
+	/**
+	 * Returns the given species names in lower case, sorted
+	 *
+	 * @param names species names
+	 * @return set of the names in lower case
+	 */
+	private static TreeSet<String> lowerCase(Collection<String> names){
+		TreeSet<String> lower = new TreeSet<String>();
+		for(String name : names)
+			lower.add(name.toLowerCase());
+		return lower;
+	}
+
+	/**
+	 * Checks TreeIdIndex against a HashMap through a long random sequence of puts,
+	 * removals and lookups. The ids come from a small range, and some are multiples of a
+	 * large number, so that entries collide, probe past the end of the arrays, and have
+	 * to be moved back when the entries before them are removed.
+	 */
+	private static void checkIdIndex(){
+		Random random = new Random(23);
+		TreeIdIndex index = new TreeIdIndex();
+		HashMap<Integer, Tree> expected = new HashMap<Integer, Tree>();
+		int failed = 0; //failures are counted once, since one usually causes many more
+		for(int step = 0; step < 200000 && failed == 0; step++){
+			int id = random.nextInt(300) * (random.nextBoolean() ? 1 : 65536);
+			int op = random.nextInt(3);
+			if(op == 0){
+				Tree t = new Tree(id, 1, "Alive", "Good", "oak", 10001, "Queens", 1, 1);
+				if(index.put(t) != expected.put(id, t))
+					failed++;
+			} else if(op == 1){
+				if(index.remove(id) != expected.remove(id))
+					failed++;
+			} else if(index.get(id) != expected.get(id)){
+				failed++;
+			}
+			if(index.size() != expected.size())
+				failed++;
+		}
+		for(Map.Entry<Integer, Tree> entry : expected.entrySet()){
+			if(index.get(entry.getKey()) != entry.getValue())
+				failed++;
+		}
+		check(failed == 0, "TreeIdIndex: differs from a HashMap after puts and removals");
+	}
+
+	/**
+	 * Checks that TreeLoader.parseInt and TreeLoader.isDouble accept exactly the text
+	 * accepted by Integer.parseInt and Double.parseDouble, and that parseInt reads the
+	 * same value. The texts are edge cases of both grammars followed by random strings
+	 * of digits, signs, exponents, suffixes, hexadecimal markers, spaces and letters of
+	 * NaN and Infinity.
+	 */
+	private static void checkNumberParsers(){
+		String[] edgeCases = {"", "+", "-", "0", "+0", "-0", "007", "2147483647", "2147483648",
+				"-2147483648", "-2147483649", "99999999999999999999", "\u0663", "1_0", " 1",
+				"NaN", "-Infinity", "+NaN", "NaNd", "Infinityf", "nan", "0x1p3", "0x1.8p-2d", "0x.8p1",
+				"0x1", "0x", "0X1P1", "1.", "1.e5", ".5", ".", "1e", "1e+", "  3.5  ", "1e5f", "1fe5",
+				"--1", "1e5.5", "1d", "1D ", "\t2.5\n", "4e400", "-1e-400"};
+		List<String> texts = new ArrayList<String>(Arrays.asList(edgeCases));
+		Random random = new Random(25);
+		String alphabet = "0123456789.eEpPxX+-fFdD aNInfity\t\u0663";
+		for(int i = 0; i < 200000; i++){
+			StringBuilder text = new StringBuilder();
+			for(int length = random.nextInt(8); length > 0; length--)
+				text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			texts.add(text.toString());
+		}
+
+		for(String text : texts){
+			long value;
+			try {
+				value = Integer.parseInt(text);
+			} catch(NumberFormatException e) {
+				value = TreeLoader.INVALID;
+			}
+			check(TreeLoader.parseInt(text) == value, "parseInt(\"" + text + "\") differs from Integer.parseInt");
+
+			boolean valid;
+			try {
+				Double.parseDouble(text);
+				valid = true;
+			} catch(NumberFormatException e) {
+				valid = false;
+			}
+			check(TreeLoader.isDouble(text) == valid, "isDouble(\"" + text + "\") differs from Double.parseDouble");
+		}
+	}
+
+	/**
+	 * Returns the tree id at the start of a csv line of the census
+	 *
+	 * @param line line of the census
+	 * @return tree id
+	 */
+	private static int lineId(String line){
+		return Integer.parseInt(line.substring(0, line.indexOf(',')));
+	}
+
+	/**
+	 * Writes the given lines after a header line to a temporary file that is deleted
+	 * when the program ends
+	 *
+	 * @param name beginning of the name of the file
+	 * @param lines lines to be written
+	 * @return the file
+	 * @throws IOException if the file cannot be written
+	 */
+	private static File writeTemp(String name, Collection<String> lines) throws IOException {
+		File file = File.createTempFile(name, ".csv");
+		file.deleteOnExit();
+		PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+		try {
+			out.println("header");
+			for(String line : lines)
+				out.println(line);
+		} finally {
+			out.close();
+		}
+		return file;
 	}
 }
@@ -11,18 +11,20 @@ public class Tree implements Comparable<Tree>{
 	
 	private int id; //non-negative
 	private int diam; //non-negative
-	private String status; //valid values: "Alive", "Dead", "Stump", empty string, or null
-	private String health; //valid values: "Good", "Fair", "Poor", empty string, or null
-	private String spc; //cannot be null
+	private Status status; //NONE if the status is an empty string or null
+	private Health health; //NONE if the health is an empty string or null
+	private int spc; //ordinal of the species name in the shared SpeciesDictionary
 	private int zip; //5 digits, between 0-99999
-	private String boro; //valid: "Manhattan", "Bronx", "Brooklyn", "Queens", "Staten Island"
+	private Borough boro; //one of the five NYC boroughs
 	private double xCoord; //x coordinate
 	private double yCoord; //y coordinate
 
 	/**
 	 * Constructor takes 9 arguments, and initializes the data fields if the arguments 
 	 * are valid. If not, throws IllegalArgumentException and does not construct the
-	 * object.
+	 * object. Code that expects many invalid arguments, such as a parser skipping the 
+	 * invalid lines of a file, should use tryCreate and validate instead, which do not 
+	 * throw exceptions.
 	 * 
 	 * @param id the tree id number
 	 * @param diam the diameter of the tree at breast height (in)
@@ -37,66 +39,119 @@ public class Tree implements Comparable<Tree>{
 	public Tree(int id, int diam, String status, String health, String spc, 
 			int zip, String boro, double xCoord, double yCoord){
 		
-		//initialize tree id
-		if(id >= 0){
-			this.id = id;
-		} else {
-			throw new IllegalArgumentException("The tree id cannot be negative");
-		}
-		
-		//initialize diameter
-		if(diam >= 0){
-			this.diam = diam;
-		} else {
-			throw new IllegalArgumentException("The tree diameter cannot be negative");
-		}
-		
-		//initialize status
-		if(status == null || status.trim().isEmpty() || status.equalsIgnoreCase("Alive") 
-				|| status.equalsIgnoreCase("Dead") || status.equalsIgnoreCase("Stump")){
-			this.status = status;
-		} else {
-			throw new IllegalArgumentException("Invalid status");
-		}
-		
-		//initialize health
-		if(health == null || health.trim().isEmpty() || health.equalsIgnoreCase("Good") 
-				|| health.equalsIgnoreCase("Fair") || health.equalsIgnoreCase("Poor")){
-			this.health = health;
-		} else {
-			throw new IllegalArgumentException("Invalid health entry");
-		}
-		
-		//initialize spc
-		if(spc != null){
-			this.spc = spc;
-		} else {
-			throw new IllegalArgumentException("The tree species cannot be null");
+		//check all arguments first, so that no data field is set for an invalid tree
+		RejectReason reason = validate(id, diam, status, health, spc, zip, boro);
+		if(reason != null){
+			throw new IllegalArgumentException(reason.getMessage());
 		}
 		
-		//initialize zipcode
-		if(zip < 0 || zip > 99999){
-			throw new IllegalArgumentException("Zipcode must be between 0 and 99999");
-		} else {
-			this.zip = zip;
-		}
+		this.id = id;
+		this.diam = diam;
+		this.status = Status.fromName(status);
+		this.health = Health.fromName(health);
+		this.zip = zip;
+		this.boro = Borough.fromName(boro);
 		
-		//initialize boro
-		if(boro == null)
-			throw new IllegalArgumentException("The borough name cannot be null");
-		if(boro.equalsIgnoreCase("Manhattan") || boro.equalsIgnoreCase("Bronx") 
-				|| boro.equalsIgnoreCase("Brooklyn") || boro.equalsIgnoreCase("Queens") 
-				|| boro.equalsIgnoreCase("Staten Island")){
-			this.boro = boro;
-		} else {
-			throw new IllegalArgumentException("Not a valid NYC borough");
-		}
+		//initialize spc (it is added to the species dictionary once the whole tree is valid)
+		this.spc = SpeciesDictionary.getShared().intern(spc);
 		
 		//initialize x and y coordinates
 		this.xCoord = xCoord;
 		this.yCoord = yCoord;
 	}
 	
+	/**
+	 * Returns the tree described by the arguments if they are valid, or null if they are 
+	 * not, without throwing an exception. The tree is the same as the one the public 
+	 * constructor would create; call validate to find out why the arguments are invalid.
+	 * 
+	 * @param id the tree id number
+	 * @param diam the diameter of the tree at breast height (in)
+	 * @param status String indicating if tree is alive, standing dead, or a stump
+	 * @param health String indicating whether tree is in good, fair, or poor health
+	 * @param spc the common species name of the tree
+	 * @param zip the zip code where the tree is located
+	 * @param boro the NYC borough where the tree is located
+	 * @param xCoord the x coordinate of the tree in state plane (ft)
+	 * @param yCoord the y coordinate of the tree in state plane (ft)
+	 * @return the tree, or null if the arguments are invalid
+	 */
+	public static Tree tryCreate(int id, int diam, String status, String health, String spc, 
+			int zip, String boro, double xCoord, double yCoord){
+		if(id < 0 || diam < 0 || spc == null || zip < 0 || zip > 99999)
+			return null;
+		Status s = Status.fromName(status);
+		Health h = Health.fromName(health);
+		Borough b = Borough.fromName(boro);
+		if(s == null || h == null || b == null)
+			return null;
+		return new Tree(id, diam, s, h, SpeciesDictionary.getShared().intern(spc), zip, b, xCoord, yCoord);
+	}
+	
+	/**
+	 * Checks the arguments of the public constructor without creating a tree or throwing 
+	 * an exception. When several arguments are invalid, the reason returned is the one for 
+	 * the first invalid argument in the order of the parameters, which is the one the 
+	 * constructor reports.
+	 * 
+	 * @param id the tree id number
+	 * @param diam the diameter of the tree at breast height (in)
+	 * @param status String indicating if tree is alive, standing dead, or a stump
+	 * @param health String indicating whether tree is in good, fair, or poor health
+	 * @param spc the common species name of the tree
+	 * @param zip the zip code where the tree is located
+	 * @param boro the NYC borough where the tree is located
+	 * @return why the arguments are invalid, or null if they are valid
+	 */
+	public static RejectReason validate(int id, int diam, String status, String health, String spc, 
+			int zip, String boro){
+		if(id < 0)
+			return RejectReason.NEGATIVE_ID;
+		if(diam < 0)
+			return RejectReason.NEGATIVE_DIAMETER;
+		if(Status.fromName(status) == null)
+			return RejectReason.INVALID_STATUS;
+		if(Health.fromName(health) == null)
+			return RejectReason.INVALID_HEALTH;
+		if(spc == null)
+			return RejectReason.NULL_SPECIES;
+		if(zip < 0 || zip > 99999)
+			return RejectReason.INVALID_ZIP;
+		if(boro == null)
+			return RejectReason.NULL_BOROUGH;
+		if(Borough.fromName(boro) == null)
+			return RejectReason.INVALID_BOROUGH;
+		return null;
+	}
+
+	/**
+	 * Constructor that initializes the data fields from values that have already been
+	 * validated, such as those read back from a snapshot of a TreeCollection. The
+	 * arguments are not checked again.
+	 *
+	 * @param id the tree id number
+	 * @param diam the diameter of the tree at breast height (in)
+	 * @param status status of the tree
+	 * @param health health of the tree
+	 * @param spc ordinal of the species name in the shared SpeciesDictionary
+	 * @param zip the zip code where the tree is located
+	 * @param boro the NYC borough where the tree is located
+	 * @param xCoord the x coordinate of the tree in state plane (ft)
+	 * @param yCoord the y coordinate of the tree in state plane (ft)
+	 */
+	Tree(int id, int diam, Status status, Health health, int spc,
+			int zip, Borough boro, double xCoord, double yCoord){
+		this.id = id;
+		this.diam = diam;
+		this.status = status;
+		this.health = health;
+		this.spc = spc;
+		this.zip = zip;
+		this.boro = boro;
+		this.xCoord = xCoord;
+		this.yCoord = yCoord;
+	}
+
 	/**
 	 * Gets ID number for the given tree
 	 * 
@@ -112,18 +167,83 @@ public class Tree implements Comparable<Tree>{
 	 * @return String of the tree species name
 	 */
 	public String getTreeSpecies(){
+		return SpeciesDictionary.getShared().getName(spc);
+	}
+	
+	/**
+	 * Gets the ordinal of the species of the given tree in the shared SpeciesDictionary.
+	 * Two trees have the same species (ignoring the case) exactly when their species 
+	 * ordinals are equal.
+	 * 
+	 * @return int ordinal of the species
+	 */
+	public int getSpeciesId(){
 		return spc;
 	}
 	
 	/**
 	 * Gets the borough in NYC in which the given tree is located
 	 * 
-	 * @return String of the borough name
+	 * @return the borough
 	 */
-	public String getBorough(){
+	public Borough getBorough(){
 		return boro;
 	}
 	
+	/**
+	 * Gets the diameter of the given tree at breast height
+	 * 
+	 * @return int diameter of the tree (in)
+	 */
+	public int getDiameter(){
+		return diam;
+	}
+	
+	/**
+	 * Gets the status of the given tree (alive, standing dead, or a stump)
+	 * 
+	 * @return the status, which is NONE if it was not recorded
+	 */
+	public Status getStatus(){
+		return status;
+	}
+	
+	/**
+	 * Gets the health of the given tree (good, fair, or poor)
+	 * 
+	 * @return the health, which is NONE if it was not recorded
+	 */
+	public Health getHealth(){
+		return health;
+	}
+	
+	/**
+	 * Gets the x coordinate of the given tree in state plane
+	 * 
+	 * @return x coordinate of the tree (ft)
+	 */
+	public double getXCoord(){
+		return xCoord;
+	}
+	
+	/**
+	 * Gets the y coordinate of the given tree in state plane
+	 * 
+	 * @return y coordinate of the tree (ft)
+	 */
+	public double getYCoord(){
+		return yCoord;
+	}
+	
+	/**
+	 * Gets the zip code in which the given tree is located as a number
+	 * 
+	 * @return int zip code, between 0 and 99999
+	 */
+	public int getZip(){
+		return zip;
+	}
+	
 	/**
 	 * Returns the zip code in which the given tree is located, with five digits 
 	 * (including leading zeros if necessary)
@@ -136,26 +256,32 @@ public class Tree implements Comparable<Tree>{
 	
 	/**
 	 * Compares two tree objects to see if they are equal. Two trees are equal if
-	 * their ID's and species name are the same (ignoring the case). 
+	 * their ID's and species are the same. 
 	 * 
-	 * @param other tree to compare to the tree the method is called on
+	 * @param other object to compare to the tree the method is called on
 	 * 
-	 * @return true if both trees have same id and same species name
+	 * @return true if other is a tree with the same id and the same species,
 	 * false, otherwise
-	 * 
-	 * @throws IllegalArgumentException if two trees have the same id, but a different species name
 	 */
 	@Override
 	public boolean equals(Object other){
-		if( id == ((Tree)other).getTreeId() ) { //check if ids equal
-			if( spc.equalsIgnoreCase(((Tree)other).getTreeSpecies()) ){ //check if spc equal
-				return true;
-			} else {
-				throw new IllegalArgumentException("Cannot have the same ID number but be different species");
-			}
-		} else {
+		if( this == other )
+			return true;
+		if( !(other instanceof Tree) ) //null or not a tree
 			return false;
-		}
+		Tree o = (Tree) other;
+		return id == o.id && spc == o.spc;
+	}
+	
+	/**
+	 * Returns a hash code for this tree, consistent with equals: trees that are equal 
+	 * have the same id, so the hash code is taken from the id alone. 
+	 * 
+	 * @return hash code of the tree
+	 */
+	@Override
+	public int hashCode(){
+		return id;
 	}
 	
 	/**
@@ -170,8 +296,8 @@ public class Tree implements Comparable<Tree>{
 	 * 0 if tree == other
 	 */
 	public int compareTo(Tree other){
-		//compare species names
-		int speciesNameComparison = spc.compareToIgnoreCase(other.getTreeSpecies());
+		//compare species names (trees of the same species have the same ordinal, so no names are compared)
+		int speciesNameComparison = SpeciesDictionary.getShared().compare(spc, other.getSpeciesId());
 		
 		//if species names are different, return alphabetical comparison from String class
 		if(speciesNameComparison != 0){
@@ -196,21 +322,21 @@ public class Tree implements Comparable<Tree>{
 	 */
 	@Override
 	public String toString(){
-		return "Tree number " + id + " is a " + spc.toLowerCase()
-				+ " tree in " + getBorough() + " in zipcode " + getZipCode() 
-				+ ". \nStatus: " + status.toLowerCase()
-				+ "\nHealth: " + health.toLowerCase();
+		return "Tree number " + id + " is a " + getTreeSpecies().toLowerCase()
+				+ " tree in " + boro.getName() + " in zipcode " + getZipCode() 
+				+ ". \nStatus: " + status.getName().toLowerCase()
+				+ "\nHealth: " + health.getName().toLowerCase();
 	} 
 	
 	
 	public boolean sameName(Tree t){
-		if(spc.equalsIgnoreCase(t.getTreeSpecies()))
+		if(spc == t.getSpeciesId())
 			return true;
 		return false;
 	}
 	
 	public int compareName(Tree t){
-		return spc.compareToIgnoreCase(t.getTreeSpecies());
+		return SpeciesDictionary.getShared().compare(spc, t.getSpeciesId());
 	}
 	
 }
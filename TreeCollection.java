@@ -8,13 +8,45 @@
  * @version 4/22/17
  */
 
+import java.io.IOException;
 import java.util.*;
 
 public class TreeCollection extends MyBST<Tree> {
+	//number of NYC boroughs
+	private static final int BOROUGH_COUNT = Borough.values().length;
+	//maximum number of query results kept in the cache
+	private static final int QUERY_CACHE_CAPACITY = 256;
+	//where query latencies are recorded
+	private static final TreeMetrics METRICS = TreeMetrics.getShared();
+	
 	// to store all species names in this TreeCollection
 	ArrayList<String> speciesInCollection = new ArrayList<String>();
+	//index of each species in speciesInCollection, by its ordinal in the shared SpeciesDictionary (-1 if not present)
+	private int[] speciesSlots = new int[0];
+	//ordinal in the shared SpeciesDictionary of each species in speciesInCollection, by its index
+	private int[] slotSpecies = new int[16];
+	//number of trees of each species in speciesInCollection
+	private int[] speciesCounts = new int[16];
+	//number of trees of each species in speciesInCollection in each borough, indexed by the ordinal of the borough
+	private int[][] speciesBoroCounts = new int[16][];
+	//substring index over speciesInCollection (null when it has to be rebuilt)
+	private volatile SpeciesIndex speciesIndex;
+	//spatial index over the coordinates of the trees (null when it has to be rebuilt)
+	private volatile SpatialIndex spatialIndex;
+	//every tree, by its tree id
+	private TreeIdIndex treesById = new TreeIdIndex();
+	//number of trees in every zip code, in total and by species
+	private final ZipIndex zipIndex = new ZipIndex();
+	//number of trees of every species in every borough by diameter
+	private final DiameterIndex diameterIndex = new DiameterIndex();
 	//to store all boroughs in this TreeCollection
 	ArrayList<Borough> boroNames = new ArrayList<Borough>(); 
+	//number of trees in each borough, indexed by the ordinal of the borough
+	private int[] boroCounts = new int[BOROUGH_COUNT];
+	//incremented every time a tree is added or removed, so cached query results can be recognized as out of date
+	private volatile long version;
+	//recent query results
+	private final QueryCache queryCache = new QueryCache(QUERY_CACHE_CAPACITY);
 	
 	/**
 	 * Default constructor that creates an empty TreeCollection object
@@ -26,8 +58,8 @@ public class TreeCollection extends MyBST<Tree> {
 	/**
 	 * Overrides the MyBST add method, additionally storing the species name and borough of the given tree if 
 	 * the tree is added to the TreeCollection. The specified tree is added if it is not already present in 
-	 * the TreeCollection. If the element is already present, the call leaves the TreeCollection unchanged and 
-	 * the method returns false. Does not accept null elements. 
+	 * the TreeCollection. If the element is already present, or another tree with the same tree id is, the call 
+	 * leaves the TreeCollection unchanged and the method returns false. Does not accept null elements. 
 	 * 
 	 * @return true if the tree was successfully added; otherwise, return false
 	 * @param t Tree to be added to the TreeCollection
@@ -37,6 +69,8 @@ public class TreeCollection extends MyBST<Tree> {
 	public boolean add(Tree t){
 		if(t == null)
 			throw new NullPointerException("Error: cannot add  null");
+		if(treesById.get(t.getTreeId()) != null)
+			return false; //tree ids are unique, so the first tree with an id is kept
 		
 		//try to add tree to TreeCollection
 		boolean added = super.add(t);
@@ -48,9 +82,235 @@ public class TreeCollection extends MyBST<Tree> {
 		}
 	}
 	
+	/**
+	 * Adds all of the trees in the given list to the TreeCollection, producing exactly the 
+	 * same collection as calling add on each tree in list order (a tree with the same tree 
+	 * id as one that appears earlier in the list is skipped). If the TreeCollection is empty, 
+	 * the duplicate ids are found with a TreeIdIndex, the trees are sorted once and the 
+	 * underlying tree is built in linear time instead of being built by separate insertions.
+	 * 
+	 * @param trees list of trees to be added, in the order they should be added
+	 * @throws NullPointerException if the list contains null
+	 */
+	public void addAll(List<? extends Tree> trees){
+		//if the collection already has trees, fall back to adding them one by one
+		if(size() > 0){
+			for(Tree t : trees)
+				add(t);
+			return;
+		}
+		
+		//keep the first tree with each id, in list order, as add would
+		TreeIdIndex byId = new TreeIdIndex(trees.size());
+		ArrayList<Tree> distinct = new ArrayList<Tree>(trees.size());
+		for(Tree t : trees){
+			if(t == null)
+				throw new NullPointerException("Error: cannot add  null");
+			if(byId.get(t.getTreeId()) == null){
+				byId.put(t);
+				distinct.add(t);
+			}
+		}
+		Tree[] sorted = distinct.toArray(new Tree[distinct.size()]);
+		Arrays.parallelSort(sorted);
+		super.bulkLoad(Arrays.asList(sorted));
+		treesById = byId;
+		
+		//store species names and boroughs in list order, as repeated calls to add would have
+		for(Tree t : distinct)
+			collectInfo(t);
+		getSpeciesIndex(); //build the species index once, now that all species are known
+	}
+	
+	/**
+	 * Overrides the MyBST bulkLoad method so that the species name and borough of every 
+	 * tree are stored as well. 
+	 * 
+	 * @param sorted list of trees in strictly ascending order
+	 * @throws IllegalStateException if this TreeCollection is not empty
+	 * @throws IllegalArgumentException if the list is not in strictly ascending order or 
+	 * has two trees with the same tree id
+	 */
+	@Override
+	public void bulkLoad(List<? extends Tree> sorted){
+		if(size() > 0)
+			throw new IllegalStateException("Error: bulkLoad requires an empty tree");
+		TreeIdIndex byId = new TreeIdIndex(sorted.size());
+		for(Tree t : sorted){
+			if(t != null && byId.put(t) != null)
+				throw new IllegalArgumentException("Error: more than one tree has the id " + t.getTreeId());
+		}
+		super.bulkLoad(sorted);
+		treesById = byId;
+		for(Tree t : sorted)
+			collectInfo(t);
+		getSpeciesIndex(); //build the species index once, now that all species are known
+	}
+	
+	/**
+	 * Fills an empty TreeCollection from a snapshot: the trees are loaded in linear time
+	 * and the species list and counts are taken as they were saved instead of being
+	 * collected again tree by tree. Only the counts by zip code and by diameter are computed again.
+	 *
+	 * @param sorted list of trees in strictly ascending order
+	 * @param species ordinals of the species in the shared SpeciesDictionary, in the
+	 * order of speciesInCollection
+	 * @param counts number of trees of each species
+	 * @param countsByBoro number of trees of each species in each borough
+	 * @param boroughs boroughs in the order of boroNames
+	 * @param countsByBorough number of trees in each borough, indexed by ordinal
+	 * @throws IllegalStateException if this TreeCollection is not empty
+	 * @throws IllegalArgumentException if the list is not in strictly ascending order or
+	 * more than one tree has the same id
+	 */
+	void restore(List<Tree> sorted, int[] species, int[] counts, int[][] countsByBoro,
+			List<Borough> boroughs, int[] countsByBorough){
+		if(size() > 0)
+			throw new IllegalStateException("Error: restore requires an empty tree");
+		super.bulkLoad(sorted);
+		for(int i = 0; i < species.length; i++){
+			int slot = addSpecies(species[i]);
+			speciesCounts[slot] = counts[i];
+			System.arraycopy(countsByBoro[i], 0, speciesBoroCounts[slot], 0, BOROUGH_COUNT);
+		}
+		boroNames.addAll(boroughs);
+		System.arraycopy(countsByBorough, 0, boroCounts, 0, BOROUGH_COUNT);
+		for(Tree t : sorted){
+			if(treesById.put(t) != null) //a valid snapshot never holds two trees with one id
+				throw new IllegalArgumentException("Error: more than one tree has the id " + t.getTreeId());
+			zipIndex.add(t);
+			diameterIndex.add(t);
+		}
+		spatialIndex = null;
+		version++;
+		getSpeciesIndex();
+	}
+
+	/**
+	 * Returns the number of trees of the species at the given index of speciesInCollection
+	 *
+	 * @param slot index of the species
+	 * @return number of trees of the species
+	 */
+	int getSpeciesCount(int slot){
+		return speciesCounts[slot];
+	}
+
+	/**
+	 * Returns the number of trees of the species at the given index of speciesInCollection
+	 * that are located in the given borough
+	 *
+	 * @param slot index of the species
+	 * @param boro the borough
+	 * @return number of trees of the species in the borough
+	 */
+	int getSpeciesCount(int slot, Borough boro){
+		return speciesBoroCounts[slot][boro.ordinal()];
+	}
+
+	/**
+	 * Overrides the MyBST remove method, additionally updating the number of trees stored 
+	 * for the species and borough of the removed tree. Returns true if this TreeCollection 
+	 * changed as a result of the call.
+	 * 
+	 * @param o Tree to be removed from the TreeCollection
+	 * @return true if the tree was removed; otherwise, return false
+	 * @throws ClassCastException if the specified object is not a Tree
+	 * @throws NullPointerException if the specified element is null
+	 */
+	@Override
+	public boolean remove(Object o){
+		if(o == null)
+			throw new NullPointerException("Error: cannot remove null");
+		
+		//find the stored tree, which may have a different borough than the parameter
+		Tree stored = find((Tree) o);
+		if(stored == null)
+			return false;
+		super.remove(stored);
+		removeInfo(stored);
+		return true;
+	}
+	
+	/**
+	 * Returns the tree with the given tree id
+	 * 
+	 * @param id tree id
+	 * @return the tree, or null if the TreeCollection has no tree with the id
+	 */
+	public Tree getById(int id){
+		return treesById.get(id);
+	}
+	
+	/**
+	 * Adds the given tree, first removing the tree with the same tree id if there is one, 
+	 * so that a tree whose species, borough or other data changed is replaced. All of the 
+	 * counts are updated as for a remove followed by an add. 
+	 * 
+	 * @param t Tree to be added
+	 * @return true if a tree with the same id was replaced; false if the tree is new
+	 * @throws NullPointerException if the tree is null
+	 */
+	public boolean upsert(Tree t){
+		if(t == null)
+			throw new NullPointerException("Error: cannot add  null");
+		boolean replaced = removeById(t.getTreeId());
+		add(t);
+		return replaced;
+	}
+	
+	/**
+	 * Removes the tree with the given tree id
+	 * 
+	 * @param id tree id
+	 * @return true if a tree was removed; false if the TreeCollection has no tree with the id
+	 */
+	public boolean removeById(int id){
+		Tree stored = treesById.get(id);
+		if(stored == null)
+			return false;
+		super.remove(stored);
+		removeInfo(stored);
+		return true;
+	}
+	
+	/**
+	 * Takes the species whose trees have all been removed off the list of species in the 
+	 * TreeCollection. The remaining species keep their order. This takes time proportional 
+	 * to the number of species, so it is done once after a batch of removals (for example 
+	 * by TreeLoader.applyDelta) rather than after each one. 
+	 */
+	public void removeEmptySpecies(){
+		int kept = 0;
+		for(int slot = 0; slot < speciesInCollection.size(); slot++){
+			int spc = slotSpecies[slot];
+			if(speciesCounts[slot] == 0){
+				speciesSlots[spc] = -1;
+				continue;
+			}
+			speciesInCollection.set(kept, speciesInCollection.get(slot));
+			speciesCounts[kept] = speciesCounts[slot];
+			speciesBoroCounts[kept] = speciesBoroCounts[slot];
+			slotSpecies[kept] = spc;
+			speciesSlots[spc] = kept;
+			kept++;
+		}
+		if(kept == speciesInCollection.size())
+			return; //no species to remove
+		
+		for(int slot = speciesInCollection.size() - 1; slot >= kept; slot--){
+			speciesInCollection.remove(slot);
+			speciesCounts[slot] = 0;
+			speciesBoroCounts[slot] = null;
+		}
+		speciesIndex = null; //species removed, index has to be rebuilt
+		version++;
+	}
+	
 	/**
 	 * Stores the species and borough of the given tree parameter in the TreeCollection
-	 * in a list of species names and boroughs. The lists of species and boroughs does 
+	 * in a list of species names and boroughs, and counts the tree for its species, its 
+	 * borough, and its species in its borough. The lists of species and boroughs does 
 	 * not accept repeat names as new entries. 
 	 * 
 	 * @param t the Tree whose info must be stored
@@ -59,26 +319,85 @@ public class TreeCollection extends MyBST<Tree> {
 		if(t == null) return;
 		
 		//add species name to list of species in TreeCollection if not already in list
-		String spc = t.getTreeSpecies().toLowerCase();
-		if(!speciesInCollection.contains(spc)){
-			speciesInCollection.add(spc);
+		int spc = t.getSpeciesId();
+		int slot = speciesSlot(spc);
+		if(slot < 0){
+			slot = addSpecies(spc);
 		}
+		
+		Borough boro = t.getBorough();
+		//if this is the first tree in its borough, add borough to the list of borough names
+		if(boroCounts[boro.ordinal()] == 0)
+			boroNames.add(boro);
+		//increment the counts for trees in that borough and species
+		boroCounts[boro.ordinal()]++;
+		speciesCounts[slot]++;
+		speciesBoroCounts[slot][boro.ordinal()]++;
+		treesById.put(t);
+		zipIndex.add(t);
+		diameterIndex.add(t);
+		spatialIndex = null;
+		version++;
+	}
 	
+	/**
+	 * Undoes collectInfo for a tree that was removed from the TreeCollection, decrementing 
+	 * the counts for its species, its borough, and its species in its borough. A borough 
+	 * without trees is taken off the list of borough names.
+	 * 
+	 * @param t the Tree that was removed
+	 */
+	private void removeInfo(Tree t){
+		int slot = speciesSlot(t.getSpeciesId());
+		Borough boro = t.getBorough();
 		
-		String boroName = t.getBorough().toLowerCase();
-		Borough boro = new Borough(boroName);
-		//for every borough in this TreeCollection
-		for(Borough b : boroNames){
-			//if this tree's borough matches b
-			if(b.getName().equalsIgnoreCase(boroName)) {
-				//increment the count for trees in that borough
-				int boroIndex = boroNames.indexOf(b);
-				boroNames.get(boroIndex).inc(); //increments count
-				return;
-			} 
+		boroCounts[boro.ordinal()]--;
+		if(boroCounts[boro.ordinal()] == 0)
+			boroNames.remove(boro);
+		speciesCounts[slot]--;
+		speciesBoroCounts[slot][boro.ordinal()]--;
+		treesById.remove(t.getTreeId());
+		zipIndex.remove(t);
+		diameterIndex.remove(t);
+		spatialIndex = null;
+		version++;
+	}
+	
+	/**
+	 * Returns the index in speciesInCollection of the species with the given ordinal
+	 * 
+	 * @param spc ordinal of the species in the shared SpeciesDictionary
+	 * @return index of the species, or -1 if the species is not in the list
+	 */
+	private int speciesSlot(int spc){
+		return (spc < speciesSlots.length) ? speciesSlots[spc] : -1;
+	}
+	
+	/**
+	 * Adds the species with the given ordinal to the list of species in the TreeCollection,
+	 * with no trees counted for it yet
+	 * 
+	 * @param spc ordinal of the species in the shared SpeciesDictionary
+	 * @return index of the species in speciesInCollection
+	 */
+	private int addSpecies(int spc){
+		if(spc >= speciesSlots.length){
+			int oldLength = speciesSlots.length;
+			speciesSlots = Arrays.copyOf(speciesSlots, Math.max(spc + 1, oldLength * 2));
+			Arrays.fill(speciesSlots, oldLength, speciesSlots.length, -1);
 		}
-		//otherwise, add borough to the list of borough names (where count = 1)
-		boroNames.add(boro);
+		int slot = speciesInCollection.size();
+		if(slot == speciesCounts.length){
+			speciesCounts = Arrays.copyOf(speciesCounts, slot * 2);
+			speciesBoroCounts = Arrays.copyOf(speciesBoroCounts, slot * 2);
+			slotSpecies = Arrays.copyOf(slotSpecies, slot * 2);
+		}
+		speciesBoroCounts[slot] = new int[BOROUGH_COUNT];
+		speciesSlots[spc] = slot;
+		slotSpecies[slot] = spc;
+		speciesInCollection.add(SpeciesDictionary.getShared().getKey(spc));
+		speciesIndex = null; //new species, index has to be rebuilt
+		return slot;
 	}
 	
 	/**
@@ -100,46 +419,16 @@ public class TreeCollection extends MyBST<Tree> {
 	 * (return 0 if none found)
 	 */
 	public int getCountByTreeSpecies(String spcName){
-		//get all matching species and store in a Collection object
-		Collection<String> matchingSpecies = getMatchingSpecies(spcName);
 		int totalCount = 0; //to keep track of total count of trees with matching species
 		
-		//for each species in the Collection
-		for(String species : matchingSpecies){
-			//count the number of Trees with given species and add to total count
-			totalCount += countTreesInSpecies(species, root);
+		//for each matching species, add the number of trees with that species to total count
+		for(int slot : matchingSlots(spcName)){
+			totalCount += speciesCounts[slot];
 		}
 		
 		return totalCount;
 	}
 	
-	/**
-	 * Helper method to getCountByTreeSpecies. Counts the number of trees in the list 
-	 * that have the exact same actual species as the first parameter.
-	 * 
-	 * @param species Actual species name to match with objects in the TreeCollection
-	 * @param current Current node in search
-	 * @return number of trees in the TreeCollection with the exact given species name
-	 */
-	private int countTreesInSpecies(String species, BSTNode<Tree> current){
-		if(current == null) return 0;
-		
-		String currentSpecies = current.getData().getTreeSpecies();
-		//if species is correct, call recursive method on both subtrees and increment count
-		if(species.compareToIgnoreCase(currentSpecies) == 0){
-			return countTreesInSpecies(species, current.getLeft()) 
-					+ countTreesInSpecies(species, current.getRight()) + 1;
-		} else {
-			//if species less than current species, go left
-			if(species.compareToIgnoreCase(currentSpecies) < 0){ 
-				return countTreesInSpecies(species, current.getLeft());
-			//if species greater than current species, go right
-			} else { 
-				return countTreesInSpecies(species, current.getRight());
-			}
-		}
-	}
-	
 	/**
 	 * Returns the number of Tree objects in the list that are located in the
 	 * borough specified by the parameter (ignoring the case).
@@ -149,15 +438,11 @@ public class TreeCollection extends MyBST<Tree> {
 	 * (return 0 if none found)
 	 */
 	public int getCountByBorough(String boroName){
-		int count = 0;
-		
-		for(Borough b : boroNames){
-			if(b.getName().equalsIgnoreCase(boroName))
-				count = b.getCount();
-		}
-		
-		return count;
+		Borough boro = Borough.fromName(boroName);
+		if(boro == null)
+			return 0; //not a valid borough, so no trees can be located in it
 		
+		return boroCounts[boro.ordinal()];
 	}
 	
 	/**
@@ -171,137 +456,313 @@ public class TreeCollection extends MyBST<Tree> {
 	 * (return 0 if none found)
 	 */
 	public int getCountByTreeSpeciesBorough (String spcName, String boroName){
-		Collection<String> matchingSpecies = getMatchingSpecies(spcName);
-		int totalCount = 0;
+		Borough boro = Borough.fromName(boroName);
+		if(boro == null)
+			return 0; //not a valid borough, so no trees can be located in it
 		
-		//for every species in the list of matching species
-		for(String species : matchingSpecies){
-			//count the number of Trees whose species and borough match parameters add to total count
-			totalCount += countSpeciesBorough(species, boroName, root);
+		int totalCount = 0;
+		//for every matching species, add the number of its trees in the borough to total count
+		for(int slot : matchingSlots(spcName)){
+			totalCount += speciesBoroCounts[slot][boro.ordinal()];
 		}
 		
 		return totalCount;
 	}
 	
 	/**
-	 * Helper method to getCountByTreeSpeciesBorough. Counts the number of trees in the list that have the 
-	 * exact same actual species as the first parameter and are located in the borough specified 
-	 * by the second parameter.
+	 * Returns everything needed to report the popularity of the species matching the 
+	 * given species name: the list of matching species, and the number of trees of those 
+	 * species and of all trees in NYC and in each borough. Results are kept in a cache 
+	 * keyed by the lowercase species name, and a cached result is only used if no trees 
+	 * have been added or removed since it was computed.
 	 * 
-	 * @param species Actual species name to exactly match with objects in the TreeCollection
-	 * @param boro Borough name to match with objects in the TreeCollection
-	 * @param current Current node in search
-	 * @return number of trees in the TreeCollection that have the exact given species name and 
-	 * that are located in the specified borough
-	 */
-	private int countSpeciesBorough(String species, String boro, BSTNode<Tree> current){
-		if(current == null) return 0;
+	 * @param speciesName species name to search for in the TreeCollection
+	 * @return result of the query
+	 */
+	public QueryResult query(String speciesName){
+		String key = speciesName.toLowerCase();
+		long currentVersion = version;
+		QueryResult result = queryCache.get(key, currentVersion);
+		if(result != null)
+			return result;
 		
-		String currentSpecies = current.getData().getTreeSpecies();
-		String currentBorough = current.getData().getBorough();
+		long start = System.nanoTime();
+		int[] matches = matchingSlots(speciesName);
+		Collection<String> actualSpecies = new ArrayList<String>(matches.length);
+		int speciesCount = 0;
+		int[] speciesCountsByBoro = new int[BOROUGH_COUNT];
+		for(int slot : matches){
+			actualSpecies.add(speciesInCollection.get(slot));
+			speciesCount += speciesCounts[slot];
+			for(int b = 0; b < BOROUGH_COUNT; b++)
+				speciesCountsByBoro[b] += speciesBoroCounts[slot][b];
+		}
+		result = new QueryResult(actualSpecies, speciesCount, size(), speciesCountsByBoro, 
+				boroCounts.clone(), currentVersion);
+		queryCache.put(key, result);
+		METRICS.getLatency(TreeMetrics.QUERY_MISS).recordSince(start);
+		return result;
+	}
+	
+	/**
+	 * Answers many species queries at once, returning the same results as calling query 
+	 * on each species name. Every query is first resolved to its matching species, and 
+	 * then the counts of all queries are added up in a single pass over the species of 
+	 * the TreeCollection, so each species' counts are read once however many queries 
+	 * match it. Queries that are the same (ignoring the case) are only resolved once. 
+	 * The results are not put in the query cache.
+	 * 
+	 * @param speciesNames species names to search for
+	 * @return result of every query, in the order of the species names
+	 */
+	public List<QueryResult> queryAll(List<String> speciesNames){
+		long start = System.nanoTime();
+		//resolve every distinct query to the species matching it
+		HashMap<String, Integer> distinct = new HashMap<String, Integer>();
+		ArrayList<int[]> matches = new ArrayList<int[]>();
+		int[] queryOf = new int[speciesNames.size()];
+		int[] queriesPerSlot = new int[speciesInCollection.size() + 1];
+		for(int i = 0; i < queryOf.length; i++){
+			String key = speciesNames.get(i).toLowerCase();
+			Integer q = distinct.get(key);
+			if(q == null){
+				q = matches.size();
+				distinct.put(key, q);
+				int[] slots = matchingSlots(key);
+				matches.add(slots);
+				for(int slot : slots)
+					queriesPerSlot[slot + 1]++;
+			}
+			queryOf[i] = q;
+		}
 		
-		//if correct species name
-		if(species.compareToIgnoreCase(currentSpecies) == 0){
-			//and correct borough name
-			if(currentBorough.equalsIgnoreCase(boro))
-				//increment count and call on both subtrees
-				return countSpeciesBorough(species, boro, current.getLeft()) + countSpeciesBorough(species, boro, current.getRight()) + 1;
-			//if incorrect borough, call on both subtrees but do not increment count 
-			else
-				return countSpeciesBorough(species, boro, current.getLeft()) + countSpeciesBorough(species, boro, current.getRight());
-		//if incorrect species name
-		} else {
-			//if the species we are looking for is less than the current species, go left
-			if(species.compareToIgnoreCase(currentSpecies) < 0){
-				return countSpeciesBorough(species, boro, current.getLeft());
-			//if the species we are looking for is greater than current species, go right
-			} else { 
-				return countSpeciesBorough(species, boro, current.getRight());
+		//list the queries matching each species, species by species
+		for(int slot = 0; slot < speciesInCollection.size(); slot++)
+			queriesPerSlot[slot + 1] += queriesPerSlot[slot];
+		int[] queriesBySlot = new int[queriesPerSlot[speciesInCollection.size()]];
+		int[] next = Arrays.copyOf(queriesPerSlot, speciesInCollection.size());
+		for(int q = 0; q < matches.size(); q++){
+			for(int slot : matches.get(q))
+				queriesBySlot[next[slot]++] = q;
+		}
+		
+		//single pass over the species, adding each one's counts to every query it matches
+		int queryCount = matches.size();
+		int[][] countsByBoro = new int[queryCount][BOROUGH_COUNT];
+		int[] counts = new int[queryCount];
+		ArrayList<ArrayList<String>> actualSpecies = new ArrayList<ArrayList<String>>(queryCount);
+		for(int q = 0; q < queryCount; q++)
+			actualSpecies.add(new ArrayList<String>(matches.get(q).length));
+		for(int slot = 0; slot < speciesInCollection.size(); slot++){
+			for(int i = queriesPerSlot[slot]; i < queriesPerSlot[slot + 1]; i++){
+				int q = queriesBySlot[i];
+				actualSpecies.get(q).add(speciesInCollection.get(slot));
+				counts[q] += speciesCounts[slot];
+				for(int b = 0; b < BOROUGH_COUNT; b++)
+					countsByBoro[q][b] += speciesBoroCounts[slot][b];
 			}
 		}
+		
+		QueryResult[] distinctResults = new QueryResult[queryCount];
+		for(int q = 0; q < queryCount; q++)
+			distinctResults[q] = new QueryResult(actualSpecies.get(q), counts[q], size(), countsByBoro[q], boroCounts.clone(), version);
+		ArrayList<QueryResult> results = new ArrayList<QueryResult>(queryOf.length);
+		for(int q : queryOf)
+			results.add(distinctResults[q]);
+		METRICS.getLatency(TreeMetrics.QUERY_ALL).recordSince(start);
+		return results;
+	}
+	
+	/**
+	 * Returns the cache of query results used by the query method, so that its hit, 
+	 * miss, and eviction counts can be inspected
+	 * 
+	 * @return the query cache of this TreeCollection
+	 */
+	public QueryCache getQueryCache(){
+		return queryCache;
 	}
 	
 	/**
 	 * Returns a Collection object containing a list of all the actual tree 
 	 * species that match a given parameter string species name. The actual species 
 	 * matches speciesName if speciesName is a substring of the actual name (case
-	 * insensitive). The returned list does not contain repeats.
+	 * insensitive). The returned list does not contain repeats. The matching species 
+	 * are found with a substring index over the species names, so the time taken 
+	 * depends on the number of matches rather than on the number of species.
 	 * 
 	 * @param speciesName species name to search for in the TreeCollection
 	 * @return Collection object (in the form of an ArrayList) with a list of matching 
 	 * species names
 	 */
 	Collection<String> getMatchingSpecies(String speciesName){ 
-		Collection<String> actualSpecies = new ArrayList<String>();
+		int[] matches = matchingSlots(speciesName);
+		Collection<String> actualSpecies = new ArrayList<String>(matches.length);
 		
-		//loop through list of species names in TreeCollection
-		for(String s : speciesInCollection){
-			String fullSpcName = s.toLowerCase();
-			
-			//check if species name contains given parameter
-			if(fullSpcName.contains(speciesName.toLowerCase())){
-				//if species name not already in list, add it
-				if(!actualSpecies.contains(fullSpcName))
-					actualSpecies.add(fullSpcName);
-			}
-		}
+		//indices are in ascending order, so species stay in the order they were added
+		for(int slot : matches)
+			actualSpecies.add(speciesInCollection.get(slot));
 		return actualSpecies;
 	}
 	
+	/**
+	 * Returns the indices in speciesInCollection of all the species that match a given 
+	 * species name and that currently have trees in the TreeCollection. 
+	 * 
+	 * @param speciesName species name to search for in the TreeCollection
+	 * @return indices of the matching species in ascending order
+	 */
+	private int[] matchingSlots(String speciesName){
+		int[] matches = getSpeciesIndex().find(speciesName.toLowerCase());
+		
+		//leave out species whose trees have all been removed
+		int count = 0;
+		for(int slot : matches){
+			if(speciesCounts[slot] > 0)
+				matches[count++] = slot;
+		}
+		return (count == matches.length) ? matches : Arrays.copyOf(matches, count);
+	}
+	
+	/**
+	 * Returns the substring index over the species names in this TreeCollection, 
+	 * building it first if species were added since it was last built.
+	 * 
+	 * @return substring index over speciesInCollection
+	 */
+	private SpeciesIndex getSpeciesIndex(){
+		SpeciesIndex index = speciesIndex;
+		if(index == null){
+			index = new SpeciesIndex(speciesInCollection);
+			speciesIndex = index;
+		}
+		return index;
+	}
+	
+	/**
+	 * Returns the number of Tree objects in the TreeCollection whose species matches the
+	 * speciesName specified by the first parameter, which are located in the borough 
+	 * specified by the second parameter, and whose diameter is between min and max 
+	 * (inclusive). Each matching species and borough is counted in logarithmic time.
+	 * 
+	 * @param spcName species name to match with objects in the TreeCollection
+	 * @param boroName borough name to match with objects in the TreeCollection, or null
+	 * for all of NYC
+	 * @param min smallest diameter at breast height (in)
+	 * @param max largest diameter at breast height (in)
+	 * @return number of trees whose species, borough and diameter match the specified 
+	 * parameters (return 0 if none found)
+	 */
+	public int getCountByDiameterRange(String spcName, String boroName, int min, int max){
+		Borough boro = null;
+		if(boroName != null){
+			boro = Borough.fromName(boroName);
+			if(boro == null)
+				return 0; //not a valid borough, so no trees can be located in it
+		}
+		
+		int totalCount = 0;
+		for(int slot : matchingSlots(spcName)){
+			totalCount += diameterIndex.getCount(slotSpecies[slot], boro, min, max);
+		}
+		return totalCount;
+	}
+	
+	/**
+	 * Returns the number of Tree objects in the TreeCollection that are located in the
+	 * given zip code
+	 * 
+	 * @param zip zip code, between 0 and 99999
+	 * @return the number of trees in the zip code (return 0 if none found)
+	 */
+	public int getCountByZip(int zip){
+		return zipIndex.getCount(zip);
+	}
+	
+	/**
+	 * Returns the index of the trees in this TreeCollection by zip code, which also 
+	 * gives the most common species of every zip code. The index is kept up to date as 
+	 * trees are added and removed.
+	 * 
+	 * @return the zip code index
+	 */
+	public ZipIndex getZipIndex(){
+		return zipIndex;
+	}
+	
+	/**
+	 * Returns a spatial index over the coordinates of the trees in this TreeCollection,
+	 * which finds the trees near a point or inside a rectangle. The index is built the 
+	 * first time it is needed and again after trees are added or removed.
+	 * 
+	 * @return spatial index over the trees
+	 */
+	public SpatialIndex getSpatialIndex(){
+		SpatialIndex index = spatialIndex;
+		if(index == null){
+			index = new SpatialIndex(this);
+			spatialIndex = index;
+		}
+		return index;
+	}
+	
+	/**
+	 * Writes every tree in the TreeCollection to the given Appendable (such as a Writer)
+	 * in the given format, in the order of the TreeCollection: first alphabetically by
+	 * species name and then by tree id. The trees are written in a single pass as they
+	 * are visited, so the memory used does not grow with the number of trees. Wrapping 
+	 * a Writer in a BufferedWriter is recommended.
+	 * 
+	 * @param out where to write the trees to
+	 * @param format format of the output
+	 * @throws IOException if writing fails
+	 */
+	public void writeTo(Appendable out, ExportFormat format) throws IOException {
+		format.writeHeader(out);
+		boolean first = true;
+		for(Tree t : this){
+			if(!first)
+				format.writeSeparator(out);
+			format.writeTree(t, out);
+			first = false;
+		}
+		format.writeFooter(out);
+	}
+	
 	/**
 	 * Returns a string representation of the TreeCollection. First, the representation
 	 * includes how many trees, species, and boroughs are represented in the 
 	 * TreeCollection. Then, it includes how many trees are in each boroughs. Finally,
 	 * it includes a list of the trees in the TreeCollection, which is ordered first
-	 * alphabetically by species name and then by tree id. 
+	 * alphabetically by species name and then by tree id. The trees are listed with 
+	 * both their tree species name and their borough.
 	 * 
 	 * @return String representation of the TreeCollection
 	 */
 	@Override
 	public String toString(){
-		String intro = "This TreeCollection has " + size() + " trees in it from " + speciesInCollection.size() + " different species"
-				+ " and " + boroNames.size() + " different boroughs.\n";
+		StringBuilder result = new StringBuilder();
+		result.append("This TreeCollection has " + size() + " trees in it from " + speciesInCollection.size() + " different species"
+				+ " and " + boroNames.size() + " different boroughs.\n");
 
 		//for each borough in the list of borough names
 		for(Borough b : boroNames){
 			//add "Bourough: # trees" to string representation
-			intro += b.getName() + ": " + getCountByBorough(b.getName()) + " trees\n";
+			result.append(b.getName().toLowerCase()).append(": ").append(boroCounts[b.ordinal()]).append(" trees\n");
 		}
 		
-		//create a list of all the trees in the TreeCollection 
-		String list = "[";
-		list += recInOrderTraversal(root);
-		list += "]";
-		
-		return intro + list; //return the description plus the list of trees
-	}
-	
-	/**
-	 * Recursive helper method to toString method which returns an itemized list of
-	 * the trees in the TreeCollection. Completes an inorder traversal of 
-	 * the TreeCollection, adding the elements of the TreeCollection to the string 
-	 * list of the trees. The order of the items is organized first by alphabetical 
-	 * species name and then by tree id. The trees are listed with both their tree 
-	 * species name and their borough. 
-	 * 
-	 * @param current Current node in traversal
-	 * @return String list of elements (as list in brackets)
-	 */
-	private String recInOrderTraversal(BSTNode<Tree> current){
-		StringBuilder newPart = new StringBuilder(); //will store new part to be added to list
-		
-		if(current != null){
-			Tree currTree = current.getData();
-			//traverse left side of TreeCollection
-			newPart.append(recInOrderTraversal(current.getLeft()));
-			//process current node
-			newPart.append(currTree.getTreeSpecies() + " in " + currTree.getBorough());
-			//unless current item is the last item, add comma between elements
-			if(!(currTree.compareTo(last()) == 0))
-				newPart.append(", ");
-			//traverse right side of TreeCollection
-			newPart.append(recInOrderTraversal(current.getRight()));
+		//add a list of all the trees in the TreeCollection, in a single inorder pass
+		result.append('[');
+		boolean first = true;
+		for(Tree t : this){
+			//add comma between elements
+			if(!first)
+				result.append(", ");
+			result.append(t.getTreeSpecies()).append(" in ").append(t.getBorough().getName());
+			first = false;
 		}
-		return newPart.toString(); //add new part to list
+		result.append(']');
+		
+		return result.toString();
 	}
 }
@@ -0,0 +1,162 @@
+/**
+ * This class maps tree ids to trees, so that a tree can be found by its id in constant
+ * time even though a TreeCollection is ordered by species first. The ids are kept in an
+ * int array (they are never boxed into Integer objects) and the trees in a parallel
+ * array, using open addressing with linear probing: an id is stored in the first free
+ * place at or after the place given by its hash. The arrays are doubled when they become
+ * half full, and a removed entry is filled by moving back the entries after it, so no
+ * deleted markers are left behind.
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+public class TreeIdIndex {
+
+	//smallest number of places in the arrays
+	private static final int MIN_CAPACITY = 16;
+
+	//id stored in every place (meaningless where trees has null)
+	private int[] ids;
+	//tree stored in every place, or null if the place is free
+	private Tree[] trees;
+	//number of trees stored
+	private int size;
+
+	/**
+	 * Default constructor that creates an empty index
+	 */
+	public TreeIdIndex(){
+		this(0);
+	}
+
+	/**
+	 * Constructor that creates an empty index with room for the given number of trees
+	 * before the arrays have to be enlarged
+	 *
+	 * @param expectedSize number of trees expected
+	 */
+	public TreeIdIndex(int expectedSize){
+		int capacity = MIN_CAPACITY;
+		while(capacity < 2 * (long) expectedSize)
+			capacity *= 2;
+		ids = new int[capacity];
+		trees = new Tree[capacity];
+	}
+
+	/**
+	 * Returns the number of trees stored in this index
+	 *
+	 * @return number of trees
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Returns the tree with the given id
+	 *
+	 * @param id tree id
+	 * @return the tree, or null if no tree with the id is stored
+	 */
+	public Tree get(int id){
+		int mask = ids.length - 1;
+		for(int i = place(id, mask); trees[i] != null; i = (i + 1) & mask){
+			if(ids[i] == id)
+				return trees[i];
+		}
+		return null;
+	}
+
+	/**
+	 * Stores the given tree under its id, replacing the tree stored with the same id
+	 *
+	 * @param t tree to be stored
+	 * @return the tree that was replaced, or null if no tree had the id
+	 * @throws NullPointerException if the tree is null
+	 */
+	public Tree put(Tree t){
+		if(t == null)
+			throw new NullPointerException("Error: cannot add  null");
+		int id = t.getTreeId();
+		int mask = ids.length - 1;
+		int i = place(id, mask);
+		for(; trees[i] != null; i = (i + 1) & mask){
+			if(ids[i] == id){
+				Tree previous = trees[i];
+				trees[i] = t;
+				return previous;
+			}
+		}
+		ids[i] = id;
+		trees[i] = t;
+		size++;
+		if(2 * size > ids.length)
+			resize(ids.length * 2);
+		return null;
+	}
+
+	/**
+	 * Removes the tree with the given id
+	 *
+	 * @param id tree id
+	 * @return the tree that was removed, or null if no tree had the id
+	 */
+	public Tree remove(int id){
+		int mask = ids.length - 1;
+		int i = place(id, mask);
+		while(trees[i] != null && ids[i] != id)
+			i = (i + 1) & mask;
+		Tree removed = trees[i];
+		if(removed == null)
+			return null;
+
+		//move back every following entry whose own place is not between the hole and the entry
+		int hole = i;
+		for(int j = (hole + 1) & mask; trees[j] != null; j = (j + 1) & mask){
+			int home = place(ids[j], mask);
+			if(((j - home) & mask) >= ((j - hole) & mask)){
+				ids[hole] = ids[j];
+				trees[hole] = trees[j];
+				hole = j;
+			}
+		}
+		trees[hole] = null;
+		size--;
+		return removed;
+	}
+
+	/**
+	 * Returns the place where the search for the given id starts
+	 *
+	 * @param id tree id
+	 * @param mask number of places minus one
+	 * @return the place
+	 */
+	private static int place(int id, int mask){
+		int h = id * 0x9E3779B9; //spread consecutive ids over the whole array
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	/**
+	 * Moves every entry into new arrays with the given number of places
+	 *
+	 * @param capacity new number of places, a power of two
+	 */
+	private void resize(int capacity){
+		int[] oldIds = ids;
+		Tree[] oldTrees = trees;
+		ids = new int[capacity];
+		trees = new Tree[capacity];
+		int mask = capacity - 1;
+		for(int k = 0; k < oldTrees.length; k++){
+			if(oldTrees[k] == null)
+				continue;
+			int i = place(oldIds[k], mask);
+			while(trees[i] != null)
+				i = (i + 1) & mask;
+			ids[i] = oldIds[k];
+			trees[i] = oldTrees[k];
+		}
+	}
+}
@@ -73,7 +73,7 @@ public class TreeList extends ArrayList<Tree> {
 		for(int i = 0; i < size(); i++){
 			
 			//compare tree borough to boroName; if a match, increase count by 1
-			if((get(i).getBorough()).equalsIgnoreCase(boroName)){
+			if((get(i).getBorough().getName()).equalsIgnoreCase(boroName)){
 				count++;
 			}
 		}
@@ -105,7 +105,7 @@ public class TreeList extends ArrayList<Tree> {
 			if((fullSpcName.toLowerCase()).contains(spcName.toLowerCase())){
 				
 				//check to see if tree borough is the specified borough
-				if((get(i).getBorough()).equalsIgnoreCase(boroName))
+				if((get(i).getBorough().getName()).equalsIgnoreCase(boroName))
 					count++;
 			}
 		}
@@ -0,0 +1,464 @@
+/**
+ * This class loads the trees from a csv file of the NYC street tree census into a
+ * TreeCollection. The file is split into chunks of bytes that begin and end on line
+ * boundaries, and the chunks are memory-mapped and parsed in parallel on a ForkJoinPool
+ * by CsvTreeParser objects. The valid trees from all chunks are then put back in file 
+ * order and added to the TreeCollection at once, so the result is exactly the same as 
+ * reading the file line by line.
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class TreeLoader {
+
+	//chunks smaller than this many bytes are parsed without being split further
+	private static final int CHUNK_SIZE = 1 << 22;
+	//number of data slots in a valid line of the file
+	private static final int COLUMNS = 41;
+	//returned by parseInt when the text is not a valid int
+	static final long INVALID = Long.MIN_VALUE;
+	//where load phases and rejected rows are recorded
+	private static final TreeMetrics METRICS = TreeMetrics.getShared();
+
+	/**
+	 * Loads all valid trees from the given csv file into a new TreeCollection, parsing
+	 * the file in parallel. The first line of the file (the data headers) is skipped.
+	 *
+	 * @param file csv file to be loaded
+	 * @return TreeCollection containing every valid tree in the file
+	 * @throws IOException if the file cannot be opened or read
+	 */
+	public static TreeCollection load(File file) throws IOException {
+		TreeCollection trees = new TreeCollection();
+		List<Tree> parsed = parse(file);
+		long start = System.nanoTime();
+		trees.addAll(parsed);
+		METRICS.recordPhase("build", parsed.size(), System.nanoTime() - start);
+		return trees;
+	}
+
+	/**
+	 * Loads all valid trees from the given csv file into a new TreeCollection, reading
+	 * the file line by line on the calling thread. The result is the same as load.
+	 *
+	 * @param file csv file to be loaded
+	 * @return TreeCollection containing every valid tree in the file
+	 * @throws IOException if the file cannot be opened or read
+	 */
+	public static TreeCollection loadSequential(File file) throws IOException {
+		TreeCollection trees = new TreeCollection();
+		long start = System.nanoTime();
+		long rowsBefore = METRICS.getRowsRead();
+		int accepted = 0;
+		Scanner input = new Scanner(file, "UTF-8");
+		try {
+			if(input.hasNextLine())
+				input.nextLine(); //skip data headers in file
+
+			//read file line-by-line
+			while(input.hasNextLine()){
+				Tree entry = parseTree(input.nextLine());
+				if(entry != null){
+					trees.add(entry); //if entry is valid, add entry to collection
+					accepted++;
+				}
+			}
+		} finally {
+			input.close();
+		}
+		METRICS.accept(accepted);
+		METRICS.recordPhase("sequential load", METRICS.getRowsRead() - rowsBefore, System.nanoTime() - start);
+		return trees;
+	}
+
+	/**
+	 * Loads all valid trees from the given csv file into a new ConcurrentTreeCollection. 
+	 * The chunks of the file are parsed in parallel, and every chunk adds its trees to 
+	 * the collection directly from its own thread, without collecting them first. If the 
+	 * file has several equal trees, which one is kept is not defined.
+	 *
+	 * @param file csv file to be loaded
+	 * @return ConcurrentTreeCollection containing every valid tree in the file
+	 * @throws IOException if the file cannot be opened or read
+	 */
+	public static ConcurrentTreeCollection loadConcurrent(File file) throws IOException {
+		ConcurrentTreeCollection trees = new ConcurrentTreeCollection();
+		long startTime = System.nanoTime();
+		long rowsBefore = METRICS.getRowsRead();
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			long start = skipHeader(channel);
+			ForkJoinPool.commonPool().invoke(new ChunkTask(channel, start, channel.size(), trees));
+			METRICS.recordPhase("concurrent load", METRICS.getRowsRead() - rowsBefore, System.nanoTime() - startTime);
+		} catch(UncheckedIOException e) {
+			throw e.getCause(); //thrown by a chunk task that failed to read the file
+		} finally {
+			raf.close();
+		}
+		return trees;
+	}
+	
+	/**
+	 * Applies a file of changes to the census to the given TreeCollection, so that it can 
+	 * be kept up to date without loading the whole census again. The first line of the 
+	 * file (the data headers) is skipped. Every other line starts with the kind of change, 
+	 * followed by a comma:
+	 * <ul>
+	 * <li>"add", "update" or "upsert", followed by a line of the census: the tree with the 
+	 * same tree id is replaced by the tree on the line, or the tree is added if there is none
+	 * <li>"delete", followed by the tree id: the tree with that id is removed, if there is one
+	 * </ul>
+	 * Lines that are not valid are skipped, as when loading the census. Each change takes 
+	 * time proportional to the logarithm of the number of trees, and all of the counts kept 
+	 * by the TreeCollection are updated with it. 
+	 *
+	 * @param trees TreeCollection to be changed
+	 * @param changeFile csv file of changes
+	 * @return number of changes applied (deletions of trees that were not there are not counted)
+	 * @throws IOException if the file cannot be opened or read
+	 */
+	public static int applyDelta(TreeCollection trees, File changeFile) throws IOException {
+		int applied = 0;
+		int rows = 0;
+		long start = System.nanoTime();
+		BufferedReader input = new BufferedReader(new InputStreamReader(new FileInputStream(changeFile), "UTF-8"));
+		try {
+			input.readLine(); //skip data headers in file
+			
+			String line;
+			while((line = input.readLine()) != null){
+				rows++;
+				int comma = line.indexOf(',');
+				if(comma < 0)
+					continue; //no change on this line
+				String change = line.substring(0, comma).trim().toLowerCase();
+				String rest = line.substring(comma + 1);
+				if(change.equals("delete")){
+					int end = rest.indexOf(',');
+					long id = parseInt(((end < 0) ? rest : rest.substring(0, end)).trim());
+					if(id == INVALID)
+						continue; //if tree id invalid, skip line
+					if(trees.removeById((int) id))
+						applied++; //deleting a tree that is not there changes nothing
+				} else if(change.equals("add") || change.equals("update") || change.equals("upsert")){
+					Tree entry = parseTree(rest);
+					if(entry != null){
+						trees.upsert(entry);
+						METRICS.accept(1);
+						applied++;
+					}
+				}
+			}
+		} finally {
+			input.close();
+		}
+		trees.removeEmptySpecies(); //species whose last trees were deleted
+		METRICS.recordPhase("delta", rows, System.nanoTime() - start);
+		return applied;
+	}
+	
+	/**
+	 * Parses all valid trees from the given csv file in parallel and returns them in
+	 * the order in which they appear in the file. The first line of the file (the data
+	 * headers) is skipped.
+	 *
+	 * @param file csv file to be parsed
+	 * @return list of valid trees in file order
+	 * @throws IOException if the file cannot be opened or read
+	 */
+	public static List<Tree> parse(File file) throws IOException {
+		long startTime = System.nanoTime();
+		long rowsBefore = METRICS.getRowsRead();
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			long start = skipHeader(channel);
+			List<Tree> trees = ForkJoinPool.commonPool().invoke(new ChunkTask(channel, start, channel.size(), null));
+			METRICS.recordPhase("parse", METRICS.getRowsRead() - rowsBefore, System.nanoTime() - startTime);
+			return trees;
+		} catch(UncheckedIOException e) {
+			throw e.getCause(); //thrown by a chunk task that failed to read the file
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Parses one line of the csv file into a Tree object. Returns null if the line does
+	 * not have the right number of data slots or if the entry is not a valid tree. Invalid
+	 * lines are counted in TreeMetrics by reason, and no exception is thrown for them.
+	 *
+	 * @param textLine line of text to be parsed
+	 * @return Tree described by the line, or null if the line is invalid
+	 */
+	public static Tree parseTree(String textLine){
+		ArrayList<String> treeInfo = NYCStreetTrees.splitCSVLine(textLine);
+
+		if(treeInfo.size() != COLUMNS){
+			METRICS.reject(RejectReason.WRONG_COLUMN_COUNT);
+			return null; //if there are not 41 data slots, tree is invalid, skip line
+		}
+
+		long id = parseInt(treeInfo.get(0));
+		long diam = parseInt(treeInfo.get(3));
+		long zip = parseInt(treeInfo.get(25));
+		if(id == INVALID || diam == INVALID || zip == INVALID
+				|| !isDouble(treeInfo.get(39)) || !isDouble(treeInfo.get(40))){
+			METRICS.reject(RejectReason.INVALID_NUMBER);
+			return null; //if a number could not be read, skip line
+		}
+
+		String status = treeInfo.get(6), health = treeInfo.get(7), spc = treeInfo.get(9), boro = treeInfo.get(29);
+		Tree entry = Tree.tryCreate((int) id, (int) diam, status, health, spc, (int) zip, boro,
+				Double.parseDouble(treeInfo.get(39)), Double.parseDouble(treeInfo.get(40)));
+		if(entry == null)
+			METRICS.reject(Tree.validate((int) id, (int) diam, status, health, spc, (int) zip, boro)); //if entry invalid, skip line
+		return entry;
+	}
+
+	/**
+	 * Reads an int from the given text, accepting exactly what Integer.parseInt accepts
+	 * (an optional sign followed by at least one digit) but without throwing an exception
+	 * when the text is not a valid int.
+	 *
+	 * @param text text to be read
+	 * @return value of the number, or INVALID if the text is not a valid int
+	 */
+	static long parseInt(String text){
+		int i = 0;
+		boolean negative = false;
+		if(i < text.length() && (text.charAt(i) == '-' || text.charAt(i) == '+')){
+			negative = (text.charAt(i) == '-');
+			i++;
+		}
+		if(i == text.length())
+			return INVALID;
+
+		long value = 0;
+		for(; i < text.length(); i++){
+			int digit = Character.digit(text.charAt(i), 10);
+			if(digit < 0)
+				return INVALID;
+			value = value * 10 + digit;
+			if(value > (long) Integer.MAX_VALUE + 1)
+				return INVALID; //too large for an int
+		}
+		if(negative)
+			value = -value;
+		if(value > Integer.MAX_VALUE)
+			return INVALID;
+		return value;
+	}
+
+	/**
+	 * Returns true if Double.parseDouble accepts the given text, so that it can be called
+	 * without the risk of an exception. The text is checked against the grammar of
+	 * Double.valueOf: optional spaces and sign, then "NaN", "Infinity", a decimal number
+	 * with an optional exponent, or a hexadecimal number with a binary exponent, then an
+	 * optional type suffix and optional spaces.
+	 *
+	 * @param text text to be checked
+	 * @return true if the text is a valid double
+	 */
+	static boolean isDouble(CharSequence text){
+		int start = 0;
+		int end = text.length();
+		//Double.parseDouble trims everything up to and including ' '
+		while(start < end && text.charAt(start) <= ' ')
+			start++;
+		while(end > start && text.charAt(end - 1) <= ' ')
+			end--;
+		int i = start;
+		if(i < end && (text.charAt(i) == '-' || text.charAt(i) == '+'))
+			i++;
+		if(matches(text, i, end, "NaN") || matches(text, i, end, "Infinity"))
+			return true;
+		if(i < end && (text.charAt(end - 1) == 'f' || text.charAt(end - 1) == 'F'
+				|| text.charAt(end - 1) == 'd' || text.charAt(end - 1) == 'D'))
+			end--; //type suffix
+
+		boolean hex = end - i > 1 && text.charAt(i) == '0' && (text.charAt(i + 1) == 'x' || text.charAt(i + 1) == 'X');
+		int radix = 10;
+		if(hex){
+			i += 2;
+			radix = 16;
+		}
+		int digits = 0;
+		for(; i < end && Character.digit(text.charAt(i), radix) >= 0 && text.charAt(i) < 128; i++)
+			digits++;
+		if(i < end && text.charAt(i) == '.'){
+			for(i++; i < end && Character.digit(text.charAt(i), radix) >= 0 && text.charAt(i) < 128; i++)
+				digits++;
+		}
+		if(digits == 0)
+			return false;
+
+		//exponent, required for hexadecimal numbers
+		char exponent = hex ? 'p' : 'e';
+		if(i < end && Character.toLowerCase(text.charAt(i)) == exponent){
+			i++;
+			if(i < end && (text.charAt(i) == '-' || text.charAt(i) == '+'))
+				i++;
+			int exponentDigits = 0;
+			for(; i < end && text.charAt(i) >= '0' && text.charAt(i) <= '9'; i++)
+				exponentDigits++;
+			if(exponentDigits == 0)
+				return false;
+		} else if(hex) {
+			return false;
+		}
+		return i == end;
+	}
+
+	/**
+	 * Returns true if the text between the two positions is exactly the given word
+	 *
+	 * @param text text to be checked
+	 * @param start position of the first character
+	 * @param end position just after the last character
+	 * @param word word to compare with
+	 * @return true if the text is the word
+	 */
+	private static boolean matches(CharSequence text, int start, int end, String word){
+		if(end - start != word.length())
+			return false;
+		for(int i = 0; i < word.length(); i++){
+			if(text.charAt(start + i) != word.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the position of the first byte after the header line of the file (or
+	 * the size of the file if it only has one line).
+	 *
+	 * @param channel channel of the file
+	 * @return position where the data lines begin
+	 * @throws IOException if the file cannot be read
+	 */
+	private static long skipHeader(FileChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(8192);
+		long position = 0;
+		long size = channel.size();
+		while(position < size){
+			buffer.clear();
+			int read = channel.read(buffer, position);
+			if(read <= 0)
+				break;
+			for(int i = 0; i < read; i++){
+				byte b = buffer.get(i);
+				if(b == '\n')
+					return position + i + 1;
+				if(b == '\r'){
+					//a "\r\n" pair ends the line after the '\n'
+					if(i + 1 < read)
+						return (buffer.get(i + 1) == '\n') ? position + i + 2 : position + i + 1;
+					ByteBuffer next = ByteBuffer.allocate(1);
+					if(channel.read(next, position + i + 1) == 1 && next.get(0) == '\n')
+						return position + i + 2;
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the position of the first line that begins at or after the given position,
+	 * which is just after the next '\n' (or the end position if there is none before it).
+	 *
+	 * @param channel channel of the file
+	 * @param position position to start looking from
+	 * @param end position to stop looking at
+	 * @return position of the beginning of a line
+	 * @throws IOException if the file cannot be read
+	 */
+	private static long nextLineStart(FileChannel channel, long position, long end) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(8192);
+		while(position < end){
+			buffer.clear();
+			int read = channel.read(buffer, position);
+			if(read <= 0)
+				break;
+			for(int i = 0; i < read && position + i < end; i++){
+				if(buffer.get(i) == '\n')
+					return position + i + 1;
+			}
+			position += read;
+		}
+		return end;
+	}
+
+	/**
+	 * Fork-join task that parses the lines in one range of bytes of the file. Large ranges
+	 * are split in two at a line boundary near the middle, and the two halves are parsed
+	 * in parallel. The trees of the first half come before the trees of the second half in
+	 * the result, so the trees are always returned in file order. If the task has a 
+	 * ConcurrentTreeCollection to fill, the trees are added to it instead of being returned.
+	 */
+	private static class ChunkTask extends RecursiveTask<List<Tree>> {
+		private static final long serialVersionUID = 1L;
+
+		private final FileChannel channel;
+		private final long start; //position of the first byte of the range (beginning of a line)
+		private final long end; //position just after the last byte of the range (end of a line)
+		private final ConcurrentTreeCollection sink; //collection to add the trees to, or null to return them
+
+		ChunkTask(FileChannel channel, long start, long end, ConcurrentTreeCollection sink){
+			this.channel = channel;
+			this.start = start;
+			this.end = end;
+			this.sink = sink;
+		}
+
+		@Override
+		protected List<Tree> compute(){
+			try {
+				if(end - start > CHUNK_SIZE){
+					long mid = nextLineStart(channel, start + (end - start) / 2, end);
+					if(mid < end){
+						ChunkTask first = new ChunkTask(channel, start, mid, sink);
+						ChunkTask second = new ChunkTask(channel, mid, end, sink);
+						first.fork();
+						List<Tree> secondTrees = second.compute();
+						List<Tree> trees = first.join();
+						trees.addAll(secondTrees);
+						return trees;
+					}
+				}
+				return parseChunk();
+			} catch(IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		/**
+		 * Memory-maps the range of bytes and parses every line in it straight from the 
+		 * mapped bytes.
+		 *
+		 * @return list of valid trees in the range, in file order (empty if they were 
+		 * added to the sink)
+		 * @throws IOException if the file cannot be mapped
+		 */
+		private List<Tree> parseChunk() throws IOException {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+			List<Tree> trees = new CsvTreeParser().parse(buffer, 0, buffer.limit());
+			if(sink == null)
+				return trees;
+			sink.addAll(trees);
+			return new ArrayList<Tree>();
+		}
+	}
+}
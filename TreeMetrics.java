@@ -0,0 +1,284 @@
+/**
+ * This class collects figures about loading and querying trees: how many rows per second
+ * every phase of loading handles, how many rows were rejected and why, the size and
+ * height of the binary search tree, the hit rate of the query cache, and histograms of
+ * the latency of the work done to answer queries: computing a query that is not in the
+ * cache, answering a batch of queries, printing the popularity report for one request
+ * of the interactive program, and handling each kind of HTTP request of TreeServer.
+ * One shared instance is used by the whole program. The figures can be printed with
+ * report (the --stats option of NYCStreetTrees) or read over JMX once register has
+ * been called.
+ *
+ * Recording is meant to be cheap enough to leave on: accepted rows are counted once per
+ * chunk of the file rather than once per row, a rejected row increments the LongAdder of
+ * its RejectReason, and a query only reads the clock twice and increments a few counters
+ * of a LatencyHistogram.
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class TreeMetrics implements TreeMetricsMXBean {
+
+	//name of the shared instance in the platform MBean server
+	public static final String OBJECT_NAME = "NYCStreetTrees:type=TreeMetrics";
+
+	//names of the latency histograms
+	//TreeCollection.query when the result is not in the cache
+	public static final String QUERY_MISS = "query (cache miss)";
+	//TreeCollection.queryAll, for the whole batch
+	public static final String QUERY_ALL = "queryAll";
+	//the whole answer to one request of the interactive program, from the query to the last area printed
+	public static final String POPULARITY_REPORT = "popularity report";
+	//TreeServer requests, from receiving the request to sending the response
+	public static final String SERVER_SEARCH = "server /search";
+	public static final String SERVER_POPULARITY = "server /popularity";
+	public static final String SERVER_MATCHING = "server /matching";
+
+	private static final TreeMetrics SHARED = new TreeMetrics();
+
+	//latency histograms by name, in the order they are reported
+	private final LinkedHashMap<String, LatencyHistogram> latencies = new LinkedHashMap<String, LatencyHistogram>();
+
+	private final LongAdder acceptedRows = new LongAdder();
+	private final LongAdder rejectedRows = new LongAdder();
+	//number of rejected rows for every reason, indexed by the ordinal of the RejectReason
+	private final LongAdder[] rejects = new LongAdder[RejectReason.values().length];
+	//number of rows and nanoseconds of every load phase, in the order the phases first ran
+	private final LinkedHashMap<String, long[]> phases = new LinkedHashMap<String, long[]>();
+	//collection whose size, height and cache are reported
+	private volatile TreeCollection watched;
+
+	/**
+	 * Default constructor that creates an instance with nothing recorded
+	 */
+	public TreeMetrics(){
+		for(int i = 0; i < rejects.length; i++)
+			rejects[i] = new LongAdder();
+		for(String name : new String[]{QUERY_MISS, QUERY_ALL, POPULARITY_REPORT, SERVER_SEARCH, SERVER_POPULARITY, SERVER_MATCHING})
+			latencies.put(name, new LatencyHistogram());
+	}
+
+	/**
+	 * Returns the instance shared by the whole program
+	 *
+	 * @return the shared TreeMetrics
+	 */
+	public static TreeMetrics getShared(){
+		return SHARED;
+	}
+
+	/**
+	 * Publishes this instance in the platform MBean server under OBJECT_NAME. Nothing
+	 * happens if an instance is already published there.
+	 *
+	 * @throws IllegalStateException if the instance cannot be published
+	 */
+	public synchronized void register(){
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if(!server.isRegistered(name))
+				server.registerMBean(this, name);
+		} catch(JMException e) {
+			throw new IllegalStateException("Cannot publish the metrics over JMX: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Sets the TreeCollection whose size, height and query cache are reported
+	 *
+	 * @param trees the collection, or null to stop reporting one
+	 */
+	public void watch(TreeCollection trees){
+		watched = trees;
+	}
+
+	/**
+	 * Returns the latency histogram with the given name
+	 *
+	 * @param name one of QUERY_MISS, QUERY_ALL, POPULARITY_REPORT, SERVER_SEARCH,
+	 * SERVER_POPULARITY and SERVER_MATCHING
+	 * @return the histogram
+	 * @throws IllegalArgumentException if there is no histogram with the name
+	 */
+	public LatencyHistogram getLatency(String name){
+		LatencyHistogram histogram = latencies.get(name);
+		if(histogram == null)
+			throw new IllegalArgumentException("No latency histogram named " + name);
+		return histogram;
+	}
+
+	/**
+	 * Counts rows that became trees
+	 *
+	 * @param rows number of rows
+	 */
+	public void accept(int rows){
+		acceptedRows.add(rows);
+	}
+
+	/**
+	 * Counts one row that was skipped as invalid
+	 *
+	 * @param reason why the row was skipped
+	 */
+	public void reject(RejectReason reason){
+		rejectedRows.increment();
+		rejects[reason.ordinal()].increment();
+	}
+
+	/**
+	 * Returns the number of rows read so far, accepted or rejected, so that a load phase
+	 * can tell how many rows it handled
+	 *
+	 * @return number of rows read
+	 */
+	public long getRowsRead(){
+		return acceptedRows.sum() + rejectedRows.sum();
+	}
+
+	/**
+	 * Records that a phase of loading handled the given number of rows in the given time.
+	 * A phase that runs several times is reported with its totals.
+	 *
+	 * @param phase name of the phase
+	 * @param rows number of rows handled
+	 * @param nanos time taken in nanoseconds
+	 */
+	public void recordPhase(String phase, long rows, long nanos){
+		synchronized(phases){
+			long[] totals = phases.get(phase);
+			if(totals == null){
+				totals = new long[2];
+				phases.put(phase, totals);
+			}
+			totals[0] += rows;
+			totals[1] += nanos;
+		}
+	}
+
+	@Override
+	public long getAcceptedRows(){
+		return acceptedRows.sum();
+	}
+
+	@Override
+	public long getRejectedRows(){
+		return rejectedRows.sum();
+	}
+
+	@Override
+	public Map<String, Long> getRejectCounts(){
+		LinkedHashMap<String, Long> counts = new LinkedHashMap<String, Long>();
+		for(RejectReason reason : RejectReason.values()){
+			long count = rejects[reason.ordinal()].sum();
+			if(count > 0)
+				counts.put(reason.getMessage(), count);
+		}
+		return counts;
+	}
+
+	@Override
+	public Map<String, Double> getRowsPerSecond(){
+		LinkedHashMap<String, Double> rates = new LinkedHashMap<String, Double>();
+		synchronized(phases){
+			for(Map.Entry<String, long[]> entry : phases.entrySet())
+				rates.put(entry.getKey(), rate(entry.getValue()));
+		}
+		return rates;
+	}
+
+	@Override
+	public int getTreeCount(){
+		TreeCollection trees = watched;
+		return (trees == null) ? 0 : trees.size();
+	}
+
+	@Override
+	public int getTreeHeight(){
+		TreeCollection trees = watched;
+		return (trees == null) ? 0 : trees.height();
+	}
+
+	@Override
+	public double getCacheHitRate(){
+		TreeCollection trees = watched;
+		if(trees == null)
+			return 0;
+		long hits = trees.getQueryCache().getHits();
+		long lookups = hits + trees.getQueryCache().getMisses();
+		return (lookups == 0) ? 0 : (double) hits / lookups;
+	}
+
+	@Override
+	public Map<String, Double> getLatencies(){
+		LinkedHashMap<String, Double> figures = new LinkedHashMap<String, Double>();
+		for(Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()){
+			String name = entry.getKey();
+			LatencyHistogram h = entry.getValue();
+			figures.put(name + ".count", (double) h.getCount());
+			figures.put(name + ".mean", h.getMean() / 1e3);
+			figures.put(name + ".p50", h.getValueAtPercentile(50) / 1e3);
+			figures.put(name + ".p90", h.getValueAtPercentile(90) / 1e3);
+			figures.put(name + ".p99", h.getValueAtPercentile(99) / 1e3);
+			figures.put(name + ".max", h.getMax() / 1e3);
+		}
+		return figures;
+	}
+
+	/**
+	 * Returns all of the figures as text, one group of lines per kind of figure
+	 *
+	 * @return report of the figures
+	 */
+	public String report(){
+		StringBuilder result = new StringBuilder();
+		result.append("Load phases:\n");
+		synchronized(phases){
+			for(Map.Entry<String, long[]> entry : phases.entrySet()){
+				long[] totals = entry.getValue();
+				result.append(String.format("   %-15s %,d rows in %.3f s (%,.0f rows/s)%n",
+						entry.getKey(), totals[0], totals[1] / 1e9, rate(totals)));
+			}
+		}
+
+		result.append(String.format("Rows: %,d accepted, %,d rejected%n", getAcceptedRows(), getRejectedRows()));
+		for(Map.Entry<String, Long> entry : getRejectCounts().entrySet())
+			result.append(String.format("   %-40s %,d%n", entry.getKey(), entry.getValue()));
+
+		TreeCollection trees = watched;
+		if(trees != null){
+			result.append(String.format("Trees: %,d (binary search tree height %d)%n", trees.size(), trees.height()));
+			QueryCache cache = trees.getQueryCache();
+			result.append(String.format("Query cache: %,d hits, %,d misses (%.2f%% hit rate)%n",
+					cache.getHits(), cache.getMisses(), getCacheHitRate() * 100));
+		}
+
+		result.append("Latency (us):            calls       mean        p50        p90        p99        max\n");
+		Map<String, Double> figures = getLatencies();
+		for(String name : latencies.keySet()){
+			result.append(String.format("   %-21s %,8.0f %10.1f %10.1f %10.1f %10.1f %10.1f%n", name,
+					figures.get(name + ".count"), figures.get(name + ".mean"), figures.get(name + ".p50"),
+					figures.get(name + ".p90"), figures.get(name + ".p99"), figures.get(name + ".max")));
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Returns the number of rows per second for the totals of a phase
+	 *
+	 * @param totals number of rows and nanoseconds
+	 * @return rows per second (0 if no time was taken)
+	 */
+	private static double rate(long[] totals){
+		return (totals[1] == 0) ? 0 : totals[0] / (totals[1] / 1e9);
+	}
+}
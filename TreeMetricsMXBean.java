@@ -0,0 +1,72 @@
+/**
+ * This interface lists the figures of TreeMetrics that are published over JMX, so that
+ * they can be watched with tools such as JConsole while the program runs. Durations are
+ * in microseconds.
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+import java.util.Map;
+
+public interface TreeMetricsMXBean {
+
+	/**
+	 * Returns the number of rows read from csv files that became trees
+	 *
+	 * @return number of accepted rows
+	 */
+	long getAcceptedRows();
+
+	/**
+	 * Returns the number of rows read from csv files that were skipped as invalid
+	 *
+	 * @return number of rejected rows
+	 */
+	long getRejectedRows();
+
+	/**
+	 * Returns the number of rejected rows for every reason a row was rejected
+	 *
+	 * @return number of rejected rows by reason
+	 */
+	Map<String, Long> getRejectCounts();
+
+	/**
+	 * Returns the number of rows handled per second in every phase of loading
+	 *
+	 * @return rows per second by phase
+	 */
+	Map<String, Double> getRowsPerSecond();
+
+	/**
+	 * Returns the number of trees in the watched TreeCollection
+	 *
+	 * @return number of trees (0 if no collection is watched)
+	 */
+	int getTreeCount();
+
+	/**
+	 * Returns the height of the binary search tree of the watched TreeCollection
+	 *
+	 * @return height of the tree (0 if no collection is watched)
+	 */
+	int getTreeHeight();
+
+	/**
+	 * Returns the share of lookups in the query cache of the watched TreeCollection that
+	 * found an up to date result
+	 *
+	 * @return hit rate, between 0 and 1
+	 */
+	double getCacheHitRate();
+
+	/**
+	 * Returns the number of calls and the mean, 50th, 90th, 99th percentile and largest
+	 * latency of every timed operation, under keys such as "server /popularity.p99"
+	 * (the operations are listed in TreeMetrics)
+	 *
+	 * @return latency figures by operation
+	 */
+	Map<String, Double> getLatencies();
+}
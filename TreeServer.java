@@ -0,0 +1,309 @@
+/**
+ * This class serves the trees of a TreeCollection over HTTP on the local machine, so that
+ * many users and programs can query the same loaded collection at once. It uses the HTTP
+ * server built into the JDK, and each request is handled on its own virtual thread when
+ * the JVM supports them (on older JVMs, a pool of platform threads is used instead).
+ * Every response is JSON. The endpoints are:
+ * <ul>
+ * <li>GET /search?species=NAME: the number of trees whose species matches NAME, and the
+ * matching species
+ * <li>GET /popularity?species=NAME: for NYC and each borough, the number of trees of the
+ * matching species, the number of all trees, and the percentage (the same numbers the
+ * interactive program prints)
+ * <li>GET /matching?species=NAME: the matching species only
+ * </ul>
+ * The collection must not be changed while the server is running.
+ *
+ * Programs that start a server should set the system property sun.net.httpserver.nodelay
+ * to "true" before the first server is created (the JDK reads it only once). Otherwise
+ * responses wait to be combined with more data, which adds about 40 ms to every request
+ * on a kept-alive connection.
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class TreeServer {
+
+	//number of connections the operating system may queue before the server accepts them
+	private static final int BACKLOG = 4096;
+	//areas reported by /popularity, in the order the interactive program prints them
+	private static final String[] AREAS = {"NYC", "Manhattan", "Bronx", "Brooklyn", "Queens", "Staten Island"};
+
+	private final TreeCollection trees;
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	/**
+	 * Constructor that creates a server for the given trees listening on the given port
+	 * of the loopback address. The server does not accept requests until start is called.
+	 *
+	 * @param trees TreeCollection to be queried
+	 * @param port port to listen on (0 to pick any free port)
+	 * @throws IOException if the port cannot be opened
+	 */
+	public TreeServer(TreeCollection trees, int port) throws IOException {
+		this.trees = trees;
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+		executor = newRequestExecutor();
+		server.setExecutor(executor);
+		TreeMetrics metrics = TreeMetrics.getShared();
+		server.createContext("/search", new Handler(metrics.getLatency(TreeMetrics.SERVER_SEARCH)){
+			void respond(String species, StringBuilder json) throws IOException {
+				writeSearch(species, json);
+			}
+		});
+		server.createContext("/popularity", new Handler(metrics.getLatency(TreeMetrics.SERVER_POPULARITY)){
+			void respond(String species, StringBuilder json) throws IOException {
+				writePopularity(species, json);
+			}
+		});
+		server.createContext("/matching", new Handler(metrics.getLatency(TreeMetrics.SERVER_MATCHING)){
+			void respond(String species, StringBuilder json) throws IOException {
+				writeMatching(species, json);
+			}
+		});
+	}
+
+	/**
+	 * Starts accepting requests in the background
+	 */
+	public void start(){
+		server.start();
+	}
+
+	/**
+	 * Stops the server, waiting at most the given number of seconds for the requests
+	 * being handled to finish
+	 *
+	 * @param delay largest number of seconds to wait
+	 */
+	public void stop(int delay){
+		server.stop(delay);
+		executor.shutdown();
+	}
+
+	/**
+	 * Returns the port the server is listening on
+	 *
+	 * @return the port
+	 */
+	public int getPort(){
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Returns an executor that runs every task on a new virtual thread if the JVM
+	 * supports virtual threads (Java 21 and later), or on a pool of platform threads
+	 * otherwise. The virtual thread executor is looked up by reflection so that this
+	 * class also compiles and runs on older JVMs.
+	 *
+	 * @return executor for handling requests
+	 */
+	static ExecutorService newRequestExecutor(){
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch(ReflectiveOperationException e) {
+			return Executors.newFixedThreadPool(Math.max(16, 4 * Runtime.getRuntime().availableProcessors()));
+		}
+	}
+
+	/**
+	 * Writes the response to /search
+	 *
+	 * @param species species name from the request
+	 * @param json where to write the response
+	 * @throws IOException if writing fails
+	 */
+	private void writeSearch(String species, StringBuilder json) throws IOException {
+		QueryResult result = trees.query(species);
+		json.append("{\"species\":");
+		ExportFormat.appendJsonString(json, species);
+		json.append(",\"count\":").append(result.getSpeciesCount());
+		json.append(",\"matchingSpecies\":");
+		appendList(json, result.getMatchingSpecies());
+		json.append('}');
+	}
+
+	/**
+	 * Writes the response to /popularity, with the same numbers as
+	 * NYCStreetTrees.getPopularity
+	 *
+	 * @param species species name from the request
+	 * @param json where to write the response
+	 * @throws IOException if writing fails
+	 */
+	private void writePopularity(String species, StringBuilder json) throws IOException {
+		json.append("{\"species\":");
+		ExportFormat.appendJsonString(json, species);
+		json.append(",\"areas\":");
+		appendAreas(json, trees.query(species));
+		json.append('}');
+	}
+
+	/**
+	 * Writes the popularity of a query in NYC and each borough as a JSON array, in the
+	 * order the interactive program prints the areas
+	 *
+	 * @param json where to write the array
+	 * @param result answer to the query
+	 * @throws IOException if writing fails
+	 */
+	static void appendAreas(StringBuilder json, QueryResult result) throws IOException {
+		json.append('[');
+		for(int i = 0; i < AREAS.length; i++){
+			int speciesAmount;
+			int totalAmount;
+			double percentage;
+			if(AREAS[i].equals("NYC")){
+				speciesAmount = result.getSpeciesCount();
+				totalAmount = result.getTotalCount();
+				percentage = result.getPercentage();
+			} else {
+				Borough boro = Borough.fromName(AREAS[i]);
+				speciesAmount = result.getSpeciesCount(boro);
+				totalAmount = result.getTotalCount(boro);
+				percentage = result.getPercentage(boro);
+			}
+
+			if(i > 0)
+				json.append(',');
+			json.append("{\"area\":");
+			ExportFormat.appendJsonString(json, AREAS[i]);
+			json.append(",\"speciesCount\":").append(speciesAmount);
+			json.append(",\"totalCount\":").append(totalAmount);
+			json.append(",\"percentage\":").append(percentage);
+			json.append('}');
+		}
+		json.append(']');
+	}
+
+	/**
+	 * Writes the response to /matching
+	 *
+	 * @param species species name from the request
+	 * @param json where to write the response
+	 * @throws IOException if writing fails
+	 */
+	private void writeMatching(String species, StringBuilder json) throws IOException {
+		json.append("{\"species\":");
+		ExportFormat.appendJsonString(json, species);
+		json.append(",\"matchingSpecies\":");
+		appendList(json, trees.query(species).getMatchingSpecies());
+		json.append('}');
+	}
+
+	/**
+	 * Writes the given strings as a JSON array
+	 *
+	 * @param json where to write the array
+	 * @param values strings to be written
+	 * @throws IOException if writing fails
+	 */
+	static void appendList(StringBuilder json, Collection<String> values) throws IOException {
+		json.append('[');
+		boolean first = true;
+		for(String value : values){
+			if(!first)
+				json.append(',');
+			ExportFormat.appendJsonString(json, value);
+			first = false;
+		}
+		json.append(']');
+	}
+
+	/**
+	 * Returns the decoded value of the given parameter in the query string of a request
+	 *
+	 * @param rawQuery query string of the request, still URL-encoded (may be null)
+	 * @param name name of the parameter
+	 * @return value of the parameter, or null if the request does not have it
+	 */
+	private static String parameter(String rawQuery, String name){
+		if(rawQuery == null)
+			return null;
+		for(String pair : rawQuery.split("&")){
+			int equals = pair.indexOf('=');
+			String key = (equals < 0) ? pair : pair.substring(0, equals);
+			if(key.equals(name)){
+				try {
+					return URLDecoder.decode((equals < 0) ? "" : pair.substring(equals + 1), "UTF-8");
+				} catch(UnsupportedEncodingException | IllegalArgumentException e) {
+					return null; //not a valid encoding
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Handler for one endpoint. It checks the request, reads the species parameter, and
+	 * sends the JSON written by respond, or an error. The time taken by every request is 
+	 * recorded in a latency histogram.
+	 */
+	private abstract static class Handler implements HttpHandler {
+		private final LatencyHistogram latency;
+
+		/**
+		 * Constructor takes the histogram in which the time taken by each request is recorded
+		 *
+		 * @param latency histogram of the endpoint
+		 */
+		Handler(LatencyHistogram latency){
+			this.latency = latency;
+		}
+
+		/**
+		 * Writes the JSON response for the given species name
+		 *
+		 * @param species species name from the request
+		 * @param json where to write the response
+		 * @throws IOException if writing fails
+		 */
+		abstract void respond(String species, StringBuilder json) throws IOException;
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			long start = System.nanoTime();
+			try {
+				StringBuilder json = new StringBuilder();
+				int status;
+				if(!exchange.getRequestMethod().equals("GET")){
+					status = 405;
+					json.append("{\"error\":\"Only GET is supported\"}");
+				} else {
+					String species = parameter(exchange.getRequestURI().getRawQuery(), "species");
+					if(species == null){
+						status = 400;
+						json.append("{\"error\":\"Missing species parameter\"}");
+					} else {
+						status = 200;
+						respond(species, json);
+					}
+				}
+
+				byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+				exchange.sendResponseHeaders(status, body.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(body);
+				out.close();
+			} finally {
+				exchange.close();
+				latency.recordSince(start);
+			}
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/**
+ * This class hosts a main method that measures how a TreeServer holds up under many
+ * concurrent requests. It either starts a TreeServer on a free local port for the given
+ * csv or snapshot file, or sends requests to a server that is already running on the
+ * given local port. A number of clients then send requests to the three endpoints in
+ * turn, each on its own thread and waiting for its response before sending the next
+ * one, until the total number of requests has been sent. The throughput and the
+ * latency percentiles are printed at the end.
+ *
+ * Usage: java TreeServerLoadTest (&lt;csv or snapshot file&gt; | port=8080)
+ * [clients=1000] [requests=100000]
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TreeServerLoadTest {
+
+	//species names requested by the clients
+	private static final String[] QUERIES = {"oak", "maple", "linden", "a", "honeylocust", "pear",
+			"London planetree", "redwood", "elm", "cherry", "ash", "ginkgo"};
+	//endpoints requested by the clients, in turn
+	private static final String[] ENDPOINTS = {"/search", "/popularity", "/matching"};
+
+	public static void main(String[] args) throws Exception {
+		if(args.length == 0){
+			System.err.println("Usage Error: java TreeServerLoadTest (<csv or snapshot file> | port=8080) [clients=1000] [requests=100000]");
+			System.exit(1);
+		}
+
+		int clients = 1000;
+		int requests = 100000;
+		int port = -1;
+		File file = null;
+		try {
+			for(String arg : args){
+				if(arg.startsWith("clients="))
+					clients = Integer.parseInt(arg.substring(8));
+				else if(arg.startsWith("requests="))
+					requests = Integer.parseInt(arg.substring(9));
+				else if(arg.startsWith("port="))
+					port = Integer.parseInt(arg.substring(5));
+				else
+					file = new File(arg);
+			}
+		} catch(NumberFormatException e) {
+			System.err.println("Usage Error: " + e.getMessage());
+			System.exit(1);
+		}
+
+		//start a server in this JVM unless one is already running
+		TreeServer server = null;
+		if(port < 0){
+			if(file == null){
+				System.err.println("Usage Error: expected a csv or snapshot file, or the port of a running server");
+				System.exit(1);
+			}
+			TreeCollection trees = TreeSnapshot.isSnapshot(file) ? TreeSnapshot.load(file) : TreeLoader.load(file);
+			//send responses right away (see TreeServer), unless set on the command line
+			if(System.getProperty("sun.net.httpserver.nodelay") == null)
+				System.setProperty("sun.net.httpserver.nodelay", "true");
+			server = new TreeServer(trees, 0);
+			server.start();
+			port = server.getPort();
+		}
+
+		//keep a connection open for every client so that requests are not slowed by reconnecting
+		System.setProperty("http.maxConnections", Integer.toString(clients));
+		System.out.println("Sending " + requests + " requests from " + clients + " clients to http://localhost:" + port);
+		run(port, clients, requests);
+
+		if(server != null)
+			server.stop(0);
+	}
+
+	/**
+	 * Sends the requests and prints the results
+	 *
+	 * @param port port of the server
+	 * @param clients number of clients sending requests at the same time
+	 * @param requests total number of requests
+	 * @throws InterruptedException if interrupted while waiting for the clients
+	 */
+	private static void run(final int port, int clients, final int requests) throws InterruptedException {
+		final long[] latencies = new long[requests];
+		final AtomicInteger nextRequest = new AtomicInteger();
+		final AtomicLong failures = new AtomicLong();
+
+		//one thread per client, so that all of the clients really send requests at the same time
+		Thread[] threads = new Thread[clients];
+		long start = System.nanoTime();
+		for(int c = 0; c < clients; c++){
+			threads[c] = new Thread(new Runnable(){
+				public void run(){
+					byte[] buffer = new byte[8192];
+					int request;
+					while((request = nextRequest.getAndIncrement()) < requests){
+						long sent = System.nanoTime();
+						try {
+							String query = URLEncoder.encode(QUERIES[request % QUERIES.length], "UTF-8");
+							URL url = new URL("http://localhost:" + port + ENDPOINTS[request % ENDPOINTS.length] + "?species=" + query);
+							HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+							InputStream in = connection.getInputStream();
+							while(in.read(buffer) >= 0){
+								//read the whole response so the connection can be reused
+							}
+							in.close();
+							if(connection.getResponseCode() != 200)
+								failures.incrementAndGet();
+						} catch(IOException e) {
+							failures.incrementAndGet();
+						}
+						latencies[request] = System.nanoTime() - sent;
+					}
+				}
+			}, "client-" + c);
+			threads[c].setDaemon(true);
+			threads[c].start();
+		}
+		for(Thread thread : threads)
+			thread.join();
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		Arrays.sort(latencies);
+		System.out.printf("Requests: %,d in %.2f s (%,.0f requests/s), failures: %,d%n",
+				requests, seconds, requests / seconds, failures.get());
+		System.out.printf("Latency (ms): p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, max %.2f%n",
+				percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+				percentile(latencies, 99.9), percentile(latencies, 100));
+	}
+
+	/**
+	 * Returns the given percentile of the sorted latencies, in milliseconds
+	 *
+	 * @param sorted latencies in nanoseconds, in ascending order
+	 * @param percent percentile, between 0 and 100
+	 * @return latency at the percentile (ms)
+	 */
+	private static double percentile(long[] sorted, double percent){
+		if(sorted.length == 0)
+			return 0;
+		int index = (int) Math.ceil(percent / 100 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+	}
+}
@@ -0,0 +1,394 @@
+/**
+ * This class saves a TreeCollection to a binary snapshot file and loads it back. Loading
+ * a snapshot is much faster than loading the csv file: the file is memory-mapped, no
+ * text is parsed, the trees are already sorted, and the species and borough counts are
+ * read as they were saved instead of being counted again. The csv file stays the source
+ * of the data; a snapshot is simply rebuilt from it whenever the csv file changes.
+ *
+ * A snapshot is laid out as follows (all numbers big-endian):
+ * <ul>
+ * <li>header: the magic number, the format version, the number of trees, the number of
+ * species and the number of boroughs
+ * <li>species: the name of every species in the collection, as an int length followed by
+ * the UTF-8 bytes of the name, in the order of the collection's species list
+ * <li>aggregates: the ordinal of every borough in the order of the collection's borough
+ * list (one byte each), the number of trees in each borough, and for every species the
+ * number of its trees followed by the number of its trees in each borough
+ * <li>columns: the tree ids, diameters, zip codes and species indices (ints), the
+ * boroughs, statuses and healths (one byte each), and the x and y coordinates (doubles),
+ * one column after the other, with the trees in sorted order
+ * <li>a CRC32 checksum of everything before it, as a long
+ * </ul>
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+public class TreeSnapshot {
+
+	//first four bytes of every snapshot ("NYCT")
+	private static final int MAGIC = 0x4E594354;
+	//changed whenever the layout of the file changes
+	private static final int FORMAT_VERSION = 1;
+	//number of NYC boroughs
+	private static final int BOROUGH_COUNT = Borough.values().length;
+	//size of the header in bytes
+	private static final int HEADER_SIZE = 5 * 4;
+	//size of the checksum at the end of the file in bytes
+	private static final int CHECKSUM_SIZE = 8;
+
+	/**
+	 * Writes a snapshot of the given TreeCollection to the given file, replacing the file
+	 * if it already exists
+	 *
+	 * @param trees TreeCollection to be saved
+	 * @param file file to write the snapshot to
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void save(TreeCollection trees, File file) throws IOException {
+		SpeciesDictionary dictionary = SpeciesDictionary.getShared();
+		List<String> species = trees.speciesInCollection;
+		List<Borough> boroughs = trees.boroNames;
+		List<Tree> sorted = trees.toList();
+		int n = sorted.size();
+
+		//index of each species in the species list, by its ordinal in the dictionary
+		int[] slots = new int[dictionary.size()];
+		for(int slot = 0; slot < species.size(); slot++)
+			slots[dictionary.lookup(species.get(slot))] = slot;
+
+		CRC32 checksum = new CRC32();
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new CheckedOutputStream(new FileOutputStream(file), checksum), 1 << 16));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(n);
+			out.writeInt(species.size());
+			out.writeInt(boroughs.size());
+
+			for(String key : species){
+				byte[] name = dictionary.getName(dictionary.lookup(key)).getBytes(StandardCharsets.UTF_8);
+				out.writeInt(name.length);
+				out.write(name);
+			}
+
+			for(Borough b : boroughs)
+				out.writeByte(b.ordinal());
+			for(int b = 0; b < BOROUGH_COUNT; b++)
+				out.writeInt(trees.getCountByBorough(Borough.fromOrdinal(b).getName()));
+			for(int slot = 0; slot < species.size(); slot++){
+				out.writeInt(trees.getSpeciesCount(slot));
+				for(int b = 0; b < BOROUGH_COUNT; b++)
+					out.writeInt(trees.getSpeciesCount(slot, Borough.fromOrdinal(b)));
+			}
+
+			for(Tree t : sorted)
+				out.writeInt(t.getTreeId());
+			for(Tree t : sorted)
+				out.writeInt(t.getDiameter());
+			for(Tree t : sorted)
+				out.writeInt(t.getZip());
+			for(Tree t : sorted)
+				out.writeInt(slots[t.getSpeciesId()]);
+			for(Tree t : sorted)
+				out.writeByte(t.getBorough().ordinal());
+			for(Tree t : sorted)
+				out.writeByte(t.getStatus().ordinal());
+			for(Tree t : sorted)
+				out.writeByte(t.getHealth().ordinal());
+			for(Tree t : sorted)
+				out.writeDouble(t.getXCoord());
+			for(Tree t : sorted)
+				out.writeDouble(t.getYCoord());
+
+			out.flush();
+			out.writeLong(checksum.getValue()); //checksum of everything written so far
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Loads a TreeCollection from the given snapshot file
+	 *
+	 * @param file snapshot file to be loaded
+	 * @return TreeCollection containing the trees saved in the snapshot
+	 * @throws IOException if the file cannot be read, is not a snapshot, was written in
+	 * a different format version, or is damaged
+	 */
+	public static TreeCollection load(File file) throws IOException {
+		long start = System.nanoTime();
+		Contents contents = readFile(file);
+		int n = contents.id.length;
+		ArrayList<Tree> sorted = new ArrayList<Tree>(n);
+		for(int i = 0; i < n; i++){
+			sorted.add(new Tree(contents.id[i], contents.diam[i], Status.fromOrdinal(contents.status[i]),
+					Health.fromOrdinal(contents.health[i]), contents.species[contents.slots[i]], contents.zip[i],
+					Borough.fromOrdinal(contents.boro[i]), contents.xCoord[i], contents.yCoord[i]));
+		}
+
+		TreeCollection trees = new TreeCollection();
+		try {
+			trees.restore(sorted, contents.species, contents.counts, contents.countsByBoro,
+					contents.boroughs, contents.countsByBorough);
+		} catch(IllegalArgumentException e) {
+			throw new IOException(file + " is damaged (trees are not in order or share an id)", e);
+		}
+		TreeMetrics.getShared().recordPhase("snapshot", n, System.nanoTime() - start);
+		return trees;
+	}
+
+	/**
+	 * Loads the trees of the given snapshot file into a TreeStore. The columns of the file
+	 * become the columns of the TreeStore, so no Tree objects are created.
+	 *
+	 * @param file snapshot file to be loaded
+	 * @return TreeStore containing the trees saved in the snapshot
+	 * @throws IOException if the file cannot be read, is not a snapshot, was written in
+	 * a different format version, or is damaged
+	 */
+	public static TreeStore loadStore(File file) throws IOException {
+		long start = System.nanoTime();
+		Contents contents = readFile(file);
+		int n = contents.id.length;
+		int[] spc = new int[n];
+		for(int i = 0; i < n; i++)
+			spc[i] = contents.species[contents.slots[i]];
+
+		TreeStore store;
+		try {
+			store = new TreeStore(contents.id, contents.diam, contents.zip, contents.boro, contents.status,
+					contents.health, spc, contents.xCoord, contents.yCoord);
+		} catch(IllegalArgumentException e) {
+			throw new IOException(file + " is damaged (trees are not in order or share an id)", e);
+		}
+		TreeMetrics.getShared().recordPhase("snapshot", n, System.nanoTime() - start);
+		return store;
+	}
+
+	/**
+	 * Everything read from a snapshot file, with the species and borough ordinals
+	 * already checked to be in range
+	 */
+	private static class Contents {
+		//ordinals of the species in the shared SpeciesDictionary, in the order of the species list
+		int[] species;
+		//aggregates
+		ArrayList<Borough> boroughs;
+		int[] countsByBorough;
+		int[] counts;
+		int[][] countsByBoro;
+		//columns, with the species as indices into the species list
+		int[] id;
+		int[] diam;
+		int[] zip;
+		int[] slots;
+		byte[] boro;
+		byte[] status;
+		byte[] health;
+		double[] xCoord;
+		double[] yCoord;
+	}
+
+	/**
+	 * Maps the given snapshot file into memory and reads it
+	 *
+	 * @param file snapshot file to be read
+	 * @return everything read from the file
+	 * @throws IOException if the file cannot be read, is not a snapshot, was written in
+	 * a different format version, or is damaged
+	 */
+	private static Contents readFile(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			long fileSize = channel.size();
+			if(fileSize < HEADER_SIZE + CHECKSUM_SIZE || fileSize > Integer.MAX_VALUE)
+				throw new IOException(file + " is not a tree snapshot");
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+			return read(buffer, file);
+		} catch(BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+			throw new IOException(file + " is damaged", e);
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Returns true if the given file begins like a snapshot, so that it can be told apart
+	 * from a csv file
+	 *
+	 * @param file file to be checked
+	 * @return true if the file begins with the snapshot magic number
+	 * @throws IOException if the file cannot be read
+	 */
+	public static boolean isSnapshot(File file) throws IOException {
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try {
+			return in.readInt() == MAGIC;
+		} catch(EOFException e) {
+			return false; //too short to be a snapshot
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads the mapped bytes of a snapshot
+	 *
+	 * @param buffer mapped bytes of the whole file
+	 * @param file the snapshot file, for error messages
+	 * @return everything read from the snapshot
+	 * @throws IOException if the bytes are not a valid snapshot
+	 */
+	private static Contents read(ByteBuffer buffer, File file) throws IOException {
+		if(buffer.getInt() != MAGIC)
+			throw new IOException(file + " is not a tree snapshot");
+		int formatVersion = buffer.getInt();
+		if(formatVersion != FORMAT_VERSION)
+			throw new IOException(file + " has snapshot format version " + formatVersion
+					+ ", expected " + FORMAT_VERSION + "; rebuild it from the csv file");
+
+		//check the whole file before trusting any of it
+		int end = buffer.limit() - CHECKSUM_SIZE;
+		CRC32 checksum = new CRC32();
+		ByteBuffer data = buffer.duplicate();
+		data.position(0).limit(end);
+		checksum.update(data);
+		if(buffer.getLong(end) != checksum.getValue())
+			throw new IOException(file + " is damaged (checksum mismatch)");
+
+		int n = buffer.getInt();
+		int speciesCount = buffer.getInt();
+		int boroughCount = buffer.getInt();
+		if(n < 0 || speciesCount < 0 || boroughCount < 0 || boroughCount > BOROUGH_COUNT)
+			throw new IOException(file + " is damaged");
+
+		//species names, added to the shared dictionary
+		SpeciesDictionary dictionary = SpeciesDictionary.getShared();
+		int[] species = new int[speciesCount];
+		for(int slot = 0; slot < speciesCount; slot++){
+			byte[] name = new byte[buffer.getInt()];
+			buffer.get(name);
+			species[slot] = dictionary.intern(new String(name, StandardCharsets.UTF_8));
+		}
+
+		//aggregates
+		ArrayList<Borough> boroughs = new ArrayList<Borough>(boroughCount);
+		for(int i = 0; i < boroughCount; i++)
+			boroughs.add(borough(buffer.get(), file));
+		int[] countsByBorough = new int[BOROUGH_COUNT];
+		buffer.asIntBuffer().get(countsByBorough);
+		buffer.position(buffer.position() + 4 * BOROUGH_COUNT);
+		int[] counts = new int[speciesCount];
+		int[][] countsByBoro = new int[speciesCount][BOROUGH_COUNT];
+		for(int slot = 0; slot < speciesCount; slot++){
+			counts[slot] = buffer.getInt();
+			buffer.asIntBuffer().get(countsByBoro[slot]);
+			buffer.position(buffer.position() + 4 * BOROUGH_COUNT);
+		}
+
+		//columns
+		int[] id = readInts(buffer, n);
+		int[] diam = readInts(buffer, n);
+		int[] zip = readInts(buffer, n);
+		int[] slots = readInts(buffer, n);
+		byte[] boro = readBytes(buffer, n);
+		byte[] status = readBytes(buffer, n);
+		byte[] health = readBytes(buffer, n);
+		double[] xCoord = readDoubles(buffer, n);
+		double[] yCoord = readDoubles(buffer, n);
+		if(buffer.position() != end)
+			throw new IOException(file + " is damaged");
+
+		for(int i = 0; i < n; i++){
+			if(slots[i] < 0 || slots[i] >= speciesCount || status[i] < 0 || status[i] >= Status.values().length
+					|| health[i] < 0 || health[i] >= Health.values().length)
+				throw new IOException(file + " is damaged");
+			borough(boro[i], file);
+		}
+
+		Contents contents = new Contents();
+		contents.species = species;
+		contents.boroughs = boroughs;
+		contents.countsByBorough = countsByBorough;
+		contents.counts = counts;
+		contents.countsByBoro = countsByBoro;
+		contents.id = id;
+		contents.diam = diam;
+		contents.zip = zip;
+		contents.slots = slots;
+		contents.boro = boro;
+		contents.status = status;
+		contents.health = health;
+		contents.xCoord = xCoord;
+		contents.yCoord = yCoord;
+		return contents;
+	}
+
+	/**
+	 * Returns the borough with the given ordinal read from a snapshot
+	 *
+	 * @param ordinal ordinal of the borough
+	 * @param file the snapshot file, for error messages
+	 * @return the borough
+	 * @throws IOException if there is no borough with that ordinal
+	 */
+	private static Borough borough(int ordinal, File file) throws IOException {
+		if(ordinal < 0 || ordinal >= BOROUGH_COUNT)
+			throw new IOException(file + " is damaged");
+		return Borough.fromOrdinal(ordinal);
+	}
+
+	/**
+	 * Reads a column of ints from the buffer, moving its position past them
+	 *
+	 * @param buffer buffer to read from
+	 * @param n number of ints
+	 * @return the ints
+	 */
+	private static int[] readInts(ByteBuffer buffer, int n){
+		int[] column = new int[n];
+		buffer.asIntBuffer().get(column);
+		buffer.position(buffer.position() + 4 * n);
+		return column;
+	}
+
+	/**
+	 * Reads a column of bytes from the buffer, moving its position past them
+	 *
+	 * @param buffer buffer to read from
+	 * @param n number of bytes
+	 * @return the bytes
+	 */
+	private static byte[] readBytes(ByteBuffer buffer, int n){
+		byte[] column = new byte[n];
+		buffer.get(column);
+		return column;
+	}
+
+	/**
+	 * Reads a column of doubles from the buffer, moving its position past them
+	 *
+	 * @param buffer buffer to read from
+	 * @param n number of doubles
+	 * @return the doubles
+	 */
+	private static double[] readDoubles(ByteBuffer buffer, int n){
+		double[] column = new double[n];
+		buffer.asDoubleBuffer().get(column);
+		buffer.position(buffer.position() + 8 * n);
+		return column;
+	}
+}
@@ -0,0 +1,406 @@
+/**
+ * This class represents a TreeStore, a compact, read-only alternative to TreeCollection.
+ * Instead of one Tree object and one BSTNode per tree, the trees are stored column by
+ * column in arrays of primitives, sorted the same way as in a TreeCollection (first by
+ * species name and then by tree id). The borough, status, and health of each tree are
+ * stored as the ordinals of their enum constants in one byte each, and the species as an 
+ * index into a table of species names.
+ * The class answers the same questions as TreeCollection, such as the number of trees
+ * with a specific species name or borough name. A TreeStore can be loaded straight from
+ * a snapshot with TreeSnapshot.loadStore, without creating a Tree object per tree, so
+ * that several census years fit in one heap.
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+import java.util.*;
+
+public class TreeStore {
+	//number of NYC boroughs
+	private static final int BOROUGH_COUNT = Borough.values().length;
+
+	private final int size;
+	private final int[] id;
+	private final int[] diam;
+	private final int[] zip;
+	private final byte[] borough;
+	private final byte[] status;
+	private final byte[] health;
+	private final int[] speciesId;
+	private final double[] xCoord;
+	private final double[] yCoord;
+
+	//species names (lowercase) in sorted order; the trees of species s are at indices
+	//speciesStart[s] up to (not including) speciesStart[s + 1]
+	private final String[] species;
+	private final int[] speciesStart;
+	//substring index over the species names
+	private final SpeciesIndex speciesIndex;
+	//number of trees of species s in borough b, at index s * BOROUGH_COUNT + b
+	private final int[] speciesBoroughCounts;
+	//number of trees in each borough
+	private final int[] boroughCounts = new int[BOROUGH_COUNT];
+
+	/**
+	 * Constructor that stores all of the trees in the given TreeCollection
+	 *
+	 * @param trees TreeCollection whose trees will be stored
+	 */
+	public TreeStore(TreeCollection trees){
+		this(trees.toList().toArray(new Tree[trees.size()]));
+	}
+
+	/**
+	 * Constructor that stores the trees in the given list. The list does not need to be
+	 * sorted. As in a TreeCollection, a tree with the same tree id as one that appears
+	 * earlier in the list is skipped.
+	 *
+	 * @param trees list of trees to be stored
+	 * @throws NullPointerException if the list contains null
+	 */
+	public TreeStore(List<? extends Tree> trees){
+		this(sortedDistinct(trees));
+	}
+
+	/**
+	 * Constructor that copies the columns out of an array of trees that is already sorted
+	 * and has no two trees with the same id
+	 *
+	 * @param sorted trees in strictly ascending order
+	 */
+	private TreeStore(Tree[] sorted){
+		this(intColumn(sorted, 0), intColumn(sorted, 1), intColumn(sorted, 2), byteColumn(sorted, 0),
+				byteColumn(sorted, 1), byteColumn(sorted, 2), intColumn(sorted, 3),
+				doubleColumn(sorted, 0), doubleColumn(sorted, 1));
+	}
+
+	/**
+	 * Constructor that stores trees given column by column, so that a TreeStore can be
+	 * filled (for example from a TreeSnapshot) without ever creating Tree objects. The
+	 * trees must be in the order of a TreeCollection; the arrays are kept, not copied.
+	 *
+	 * @param id tree ids
+	 * @param diam diameters
+	 * @param zip zip codes
+	 * @param borough ordinals of the boroughs
+	 * @param status ordinals of the statuses
+	 * @param health ordinals of the healths
+	 * @param spc ordinals of the species in the shared SpeciesDictionary
+	 * @param xCoord x coordinates
+	 * @param yCoord y coordinates
+	 * @throws IllegalArgumentException if the columns have different lengths, an ordinal
+	 * is out of range, the trees are not in strictly ascending order, or more than one
+	 * tree has the same id
+	 */
+	TreeStore(int[] id, int[] diam, int[] zip, byte[] borough, byte[] status, byte[] health,
+			int[] spc, double[] xCoord, double[] yCoord){
+		size = id.length;
+		if(diam.length != size || zip.length != size || borough.length != size || status.length != size
+				|| health.length != size || spc.length != size || xCoord.length != size || yCoord.length != size)
+			throw new IllegalArgumentException("Error: columns must have the same length");
+		this.id = id;
+		this.diam = diam;
+		this.zip = zip;
+		this.borough = borough;
+		this.status = status;
+		this.health = health;
+		this.xCoord = xCoord;
+		this.yCoord = yCoord;
+		speciesId = new int[size];
+
+		SpeciesDictionary dictionary = SpeciesDictionary.getShared();
+		ArrayList<String> speciesNames = new ArrayList<String>();
+		ArrayList<Integer> starts = new ArrayList<Integer>();
+		for(int i = 0; i < size; i++){
+			if(borough[i] < 0 || borough[i] >= BOROUGH_COUNT || status[i] < 0 || status[i] >= Status.values().length
+					|| health[i] < 0 || health[i] >= Health.values().length)
+				throw new IllegalArgumentException("Error: ordinal out of range");
+			//trees of one species are next to each other, so a new species starts a new range
+			if(i == 0 || spc[i] != spc[i - 1]){
+				if(i > 0 && dictionary.compare(spc[i - 1], spc[i]) >= 0)
+					throw new IllegalArgumentException("Error: trees must be sorted without duplicates");
+				speciesNames.add(dictionary.getKey(spc[i]));
+				starts.add(i);
+			} else if(id[i - 1] >= id[i]){
+				throw new IllegalArgumentException("Error: trees must be sorted without duplicates");
+			}
+			speciesId[i] = speciesNames.size() - 1;
+		}
+
+		//trees of different species may still share an id
+		int[] ids = id.clone();
+		Arrays.sort(ids);
+		for(int i = 1; i < size; i++){
+			if(ids[i - 1] == ids[i])
+				throw new IllegalArgumentException("Error: more than one tree has the id " + ids[i]);
+		}
+
+		species = speciesNames.toArray(new String[speciesNames.size()]);
+		speciesStart = new int[species.length + 1];
+		for(int s = 0; s < species.length; s++)
+			speciesStart[s] = starts.get(s);
+		speciesStart[species.length] = size;
+		speciesIndex = new SpeciesIndex(speciesNames);
+
+		speciesBoroughCounts = new int[species.length * BOROUGH_COUNT];
+		for(int i = 0; i < size; i++){
+			speciesBoroughCounts[speciesId[i] * BOROUGH_COUNT + borough[i]]++;
+			boroughCounts[borough[i]]++;
+		}
+	}
+
+	/**
+	 * Keeps the first tree with each tree id, in list order, and sorts the trees kept
+	 *
+	 * @param trees list of trees
+	 * @return array of the distinct trees in strictly ascending order
+	 */
+	private static Tree[] sortedDistinct(List<? extends Tree> trees){
+		TreeIdIndex byId = new TreeIdIndex(trees.size());
+		Tree[] sorted = new Tree[trees.size()];
+		int count = 0;
+		for(Tree t : trees){
+			if(t == null)
+				throw new NullPointerException("Error: cannot add  null");
+			if(byId.get(t.getTreeId()) == null){
+				byId.put(t);
+				sorted[count++] = t;
+			}
+		}
+		sorted = Arrays.copyOf(sorted, count);
+		Arrays.parallelSort(sorted);
+		return sorted;
+	}
+
+	/**
+	 * Returns one int column of the given trees
+	 *
+	 * @param trees the trees
+	 * @param column 0 for the ids, 1 for the diameters, 2 for the zip codes and 3 for the
+	 * species ordinals
+	 * @return the column
+	 */
+	private static int[] intColumn(Tree[] trees, int column){
+		int[] values = new int[trees.length];
+		for(int i = 0; i < trees.length; i++){
+			Tree t = trees[i];
+			values[i] = (column == 0) ? t.getTreeId() : (column == 1) ? t.getDiameter()
+					: (column == 2) ? t.getZip() : t.getSpeciesId();
+		}
+		return values;
+	}
+
+	/**
+	 * Returns one byte column of the given trees
+	 *
+	 * @param trees the trees
+	 * @param column 0 for the borough, 1 for the status and 2 for the health ordinals
+	 * @return the column
+	 */
+	private static byte[] byteColumn(Tree[] trees, int column){
+		byte[] values = new byte[trees.length];
+		for(int i = 0; i < trees.length; i++){
+			Tree t = trees[i];
+			values[i] = (byte) ((column == 0) ? t.getBorough().ordinal()
+					: (column == 1) ? t.getStatus().ordinal() : t.getHealth().ordinal());
+		}
+		return values;
+	}
+
+	/**
+	 * Returns one double column of the given trees
+	 *
+	 * @param trees the trees
+	 * @param column 0 for the x and 1 for the y coordinates
+	 * @return the column
+	 */
+	private static double[] doubleColumn(Tree[] trees, int column){
+		double[] values = new double[trees.length];
+		for(int i = 0; i < trees.length; i++)
+			values[i] = (column == 0) ? trees[i].getXCoord() : trees[i].getYCoord();
+		return values;
+	}
+
+	/**
+	 * Returns the total number of trees stored in this TreeStore
+	 *
+	 * @return the number of trees in TreeStore
+	 */
+	public int getTotalNumberOfTrees(){
+		return size;
+	}
+
+	/**
+	 * Returns the number of trees in the TreeStore whose species matches the speciesName
+	 * specified by the parameter. The method is case insensitive. Returns zero if method
+	 * is called with non-existent species.
+	 *
+	 * @param spcName species name to match with trees in the TreeStore
+	 * @return total number of trees matching the specified species name
+	 * (return 0 if none found)
+	 */
+	public int getCountByTreeSpecies(String spcName){
+		int totalCount = 0;
+		for(int s : speciesIndex.find(spcName.toLowerCase()))
+			totalCount += speciesStart[s + 1] - speciesStart[s];
+		return totalCount;
+	}
+
+	/**
+	 * Returns the number of trees in the TreeStore that are located in the borough
+	 * specified by the parameter (ignoring the case).
+	 *
+	 * @param boroName the specified borough
+	 * @return the number of trees located in the specified borough (return 0 if none found)
+	 */
+	public int getCountByBorough(String boroName){
+		Borough boro = Borough.fromName(boroName);
+		return (boro == null) ? 0 : boroughCounts[boro.ordinal()];
+	}
+
+	/**
+	 * Returns the number of trees in the TreeStore whose species matches the speciesName
+	 * specified by the first parameter and which are located in the borough specified by
+	 * the second parameter.
+	 *
+	 * @param spcName species name to match with trees in the TreeStore
+	 * @param boroName borough name to match with trees in the TreeStore
+	 * @return number of trees whose species and borough match the specified parameters
+	 * (return 0 if none found)
+	 */
+	public int getCountByTreeSpeciesBorough(String spcName, String boroName){
+		Borough boro = Borough.fromName(boroName);
+		if(boro == null)
+			return 0;
+
+		int totalCount = 0;
+		for(int s : speciesIndex.find(spcName.toLowerCase()))
+			totalCount += speciesBoroughCounts[s * BOROUGH_COUNT + boro.ordinal()];
+		return totalCount;
+	}
+
+	/**
+	 * Returns a Collection object containing a list of all the actual tree species that
+	 * match a given parameter string species name. The actual species matches speciesName
+	 * if speciesName is a substring of the actual name (case insensitive). The returned
+	 * list is in alphabetical order and does not contain repeats.
+	 *
+	 * @param speciesName species name to search for in the TreeStore
+	 * @return Collection object (in the form of an ArrayList) with a list of matching
+	 * species names
+	 */
+	public Collection<String> getMatchingSpecies(String speciesName){
+		int[] matches = speciesIndex.find(speciesName.toLowerCase());
+		Collection<String> actualSpecies = new ArrayList<String>(matches.length);
+		for(int s : matches)
+			actualSpecies.add(species[s]);
+		return actualSpecies;
+	}
+
+	/**
+	 * Returns the id of the tree at the given index
+	 *
+	 * @param index index of the tree, between 0 and the number of trees - 1
+	 * @return tree id
+	 */
+	public int getTreeId(int index){
+		return id[index];
+	}
+
+	/**
+	 * Returns the diameter of the tree at the given index
+	 *
+	 * @param index index of the tree, between 0 and the number of trees - 1
+	 * @return diameter of the tree at breast height (in)
+	 */
+	public int getDiameter(int index){
+		return diam[index];
+	}
+
+	/**
+	 * Returns the zip code of the tree at the given index
+	 *
+	 * @param index index of the tree, between 0 and the number of trees - 1
+	 * @return zip code, between 0 and 99999
+	 */
+	public int getZip(int index){
+		return zip[index];
+	}
+
+	/**
+	 * Returns the borough of the tree at the given index
+	 *
+	 * @param index index of the tree, between 0 and the number of trees - 1
+	 * @return borough of the tree
+	 */
+	public Borough getBorough(int index){
+		return Borough.fromOrdinal(borough[index]);
+	}
+
+	/**
+	 * Returns the status of the tree at the given index
+	 *
+	 * @param index index of the tree, between 0 and the number of trees - 1
+	 * @return status of the tree, which is NONE if it was not recorded
+	 */
+	public Status getStatus(int index){
+		return Status.fromOrdinal(status[index]);
+	}
+
+	/**
+	 * Returns the health of the tree at the given index
+	 *
+	 * @param index index of the tree, between 0 and the number of trees - 1
+	 * @return health of the tree, which is NONE if it was not recorded
+	 */
+	public Health getHealth(int index){
+		return Health.fromOrdinal(health[index]);
+	}
+
+	/**
+	 * Returns the species name of the tree at the given index
+	 *
+	 * @param index index of the tree, between 0 and the number of trees - 1
+	 * @return species name (lowercase)
+	 */
+	public String getTreeSpecies(int index){
+		return species[speciesId[index]];
+	}
+
+	/**
+	 * Returns the x coordinate of the tree at the given index
+	 *
+	 * @param index index of the tree, between 0 and the number of trees - 1
+	 * @return x coordinate in state plane (ft)
+	 */
+	public double getXCoord(int index){
+		return xCoord[index];
+	}
+
+	/**
+	 * Returns the y coordinate of the tree at the given index
+	 *
+	 * @param index index of the tree, between 0 and the number of trees - 1
+	 * @return y coordinate in state plane (ft)
+	 */
+	public double getYCoord(int index){
+		return yCoord[index];
+	}
+
+	/**
+	 * Returns a string representation of the TreeStore, which includes how many trees,
+	 * species, and boroughs are represented in the TreeStore and how many trees are in
+	 * each borough. The trees themselves are not listed.
+	 *
+	 * @return String representation of the TreeStore
+	 */
+	@Override
+	public String toString(){
+		StringBuilder result = new StringBuilder();
+		result.append("This TreeStore has " + size + " trees in it from " + species.length + " different species.\n");
+		for(int b = 0; b < BOROUGH_COUNT; b++)
+			result.append(Borough.fromOrdinal(b).getName() + ": " + boroughCounts[b] + " trees\n");
+		return result.toString();
+	}
+}
@@ -0,0 +1,206 @@
+/**
+ * This class counts trees by zip code: the number of trees in every zip code, and for
+ * every zip code the number of trees of each species (a species histogram). Zip codes
+ * are numbers between 0 and 99999, so each one is given a slot the first time a tree is
+ * counted in it, through a table covering the whole range; the histograms are arrays
+ * indexed by the ordinals of the species in the shared SpeciesDictionary. The counts
+ * are updated as trees are added and removed, and no query allocates any memory: the
+ * most common species of a zip code are written into arrays supplied by the caller.
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+import java.util.*;
+
+public class ZipIndex {
+
+	//number of possible zip codes (0 to 99999)
+	private static final int ZIP_CODES = 100000;
+
+	//slot of every zip code with trees counted in it, or -1
+	private final int[] zipSlots = new int[ZIP_CODES];
+	//zip code of every slot, in the order the slots were given out
+	private int[] zips = new int[64];
+	//number of trees in the zip code of every slot
+	private int[] counts = new int[64];
+	//number of trees of each species (by ordinal) in the zip code of every slot
+	private int[][] histograms = new int[64][];
+	private int slotCount;
+
+	/**
+	 * Default constructor that creates an index with no trees counted
+	 */
+	public ZipIndex(){
+		Arrays.fill(zipSlots, -1);
+	}
+
+	/**
+	 * Counts the given tree in its zip code
+	 *
+	 * @param t tree to be counted
+	 */
+	public void add(Tree t){
+		int slot = zipSlots[t.getZip()];
+		if(slot < 0)
+			slot = addZip(t.getZip());
+		int[] histogram = histograms[slot];
+		int spc = t.getSpeciesId();
+		if(spc >= histogram.length){
+			histogram = Arrays.copyOf(histogram, Math.max(spc + 1, histogram.length * 2));
+			histograms[slot] = histogram;
+		}
+		histogram[spc]++;
+		counts[slot]++;
+	}
+
+	/**
+	 * Stops counting the given tree, which must have been counted with add before
+	 *
+	 * @param t tree that was removed
+	 */
+	public void remove(Tree t){
+		int slot = zipSlots[t.getZip()];
+		histograms[slot][t.getSpeciesId()]--;
+		counts[slot]--;
+	}
+
+	/**
+	 * Returns the number of trees in the given zip code
+	 *
+	 * @param zip zip code
+	 * @return number of trees in the zip code (0 if the zip code is not valid)
+	 */
+	public int getCount(int zip){
+		int slot = slot(zip);
+		return (slot < 0) ? 0 : counts[slot];
+	}
+
+	/**
+	 * Returns the number of trees of the given species in the given zip code
+	 *
+	 * @param zip zip code
+	 * @param spc ordinal of the species in the shared SpeciesDictionary
+	 * @return number of trees of the species in the zip code
+	 */
+	public int getCount(int zip, int spc){
+		int slot = slot(zip);
+		if(slot < 0 || spc < 0 || spc >= histograms[slot].length)
+			return 0;
+		return histograms[slot][spc];
+	}
+
+	/**
+	 * Returns the number of zip codes in which trees have been counted, including those
+	 * whose trees have all been removed since
+	 *
+	 * @return number of zip codes
+	 */
+	public int getZipCodeCount(){
+		return slotCount;
+	}
+
+	/**
+	 * Returns one of the zip codes in which trees have been counted, so that all of them
+	 * can be listed
+	 *
+	 * @param index index of the zip code, between 0 and getZipCodeCount() - 1, in the
+	 * order in which the zip codes were first seen
+	 * @return the zip code
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	public int getZipCode(int index){
+		if(index < 0 || index >= slotCount)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + slotCount);
+		return zips[index];
+	}
+
+	/**
+	 * Finds the n most common species in the given zip code and writes their ordinals
+	 * (in the shared SpeciesDictionary) and their numbers of trees into the given arrays,
+	 * most common first. Species with the same number of trees are in alphabetical order.
+	 * Fewer than n species are written if the zip code has fewer species with trees.
+	 *
+	 * @param zip zip code
+	 * @param n number of species to be found
+	 * @param speciesOut array receiving the ordinals of the species
+	 * @param countsOut array receiving the numbers of trees of the species
+	 * @return number of species written into the arrays
+	 * @throws IllegalArgumentException if n is negative or either array is shorter than n
+	 */
+	public int topSpecies(int zip, int n, int[] speciesOut, int[] countsOut){
+		if(n < 0 || speciesOut.length < n || countsOut.length < n)
+			throw new IllegalArgumentException("The arrays must have room for " + n + " species");
+		int slot = slot(zip);
+		if(slot < 0 || n == 0)
+			return 0;
+
+		SpeciesDictionary dictionary = SpeciesDictionary.getShared();
+		int[] histogram = histograms[slot];
+		int found = 0;
+		for(int spc = 0; spc < histogram.length; spc++){
+			int count = histogram[spc];
+			if(count == 0)
+				continue;
+			if(found == n && !comesBefore(count, spc, countsOut[n - 1], speciesOut[n - 1], dictionary))
+				continue; //not among the n most common so far
+			//insert the species into the sorted output, dropping the last one if it is full
+			int position = (found < n) ? found++ : n - 1;
+			while(position > 0 && comesBefore(count, spc, countsOut[position - 1], speciesOut[position - 1], dictionary)){
+				speciesOut[position] = speciesOut[position - 1];
+				countsOut[position] = countsOut[position - 1];
+				position--;
+			}
+			speciesOut[position] = spc;
+			countsOut[position] = count;
+		}
+		return found;
+	}
+
+	/**
+	 * Returns true if a species with the given number of trees comes before another
+	 * one in the order of topSpecies
+	 *
+	 * @param count number of trees of the first species
+	 * @param spc ordinal of the first species
+	 * @param otherCount number of trees of the second species
+	 * @param otherSpc ordinal of the second species
+	 * @param dictionary the shared species dictionary
+	 * @return true if the first species comes first
+	 */
+	private static boolean comesBefore(int count, int spc, int otherCount, int otherSpc, SpeciesDictionary dictionary){
+		if(count != otherCount)
+			return count > otherCount;
+		return dictionary.compare(spc, otherSpc) < 0;
+	}
+
+	/**
+	 * Returns the slot of the given zip code
+	 *
+	 * @param zip zip code
+	 * @return slot of the zip code, or -1 if no trees have been counted in it
+	 */
+	private int slot(int zip){
+		return (zip < 0 || zip >= ZIP_CODES) ? -1 : zipSlots[zip];
+	}
+
+	/**
+	 * Gives the given zip code the next slot, with no trees counted in it yet
+	 *
+	 * @param zip zip code
+	 * @return slot of the zip code
+	 */
+	private int addZip(int zip){
+		int slot = slotCount;
+		if(slot == zips.length){
+			zips = Arrays.copyOf(zips, slot * 2);
+			counts = Arrays.copyOf(counts, slot * 2);
+			histograms = Arrays.copyOf(histograms, slot * 2);
+		}
+		zips[slot] = zip;
+		histograms[slot] = new int[Math.max(16, SpeciesDictionary.getShared().size())];
+		zipSlots[zip] = slot;
+		slotCount++;
+		return slot;
+	}
+}
@@ -0,0 +1,38 @@
+/**
+ * This class holds the JMH benchmark of turning csv lines of the census into trees, the
+ * work done for every line of the file when the program starts.
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+package nycstreettrees;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+//imported by name so that it is not taken for the Benchmark class of this package
+import org.openjdk.jmh.annotations.Benchmark;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadBenchmark {
+
+	/**
+	 * Parses every line of the dataset into a tree
+	 *
+	 * @param data the dataset
+	 * @return number of valid lines
+	 */
+	@Benchmark
+	public long csvParse(TreeData data){
+		long valid = 0;
+		for(String line : data.lines){
+			if(TreeLoader.parseTree(line) != null)
+				valid++;
+		}
+		return valid;
+	}
+}
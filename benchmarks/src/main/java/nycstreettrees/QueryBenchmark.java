@@ -0,0 +1,113 @@
+/**
+ * This class holds the JMH benchmarks of the species and borough queries of
+ * TreeCollection next to the linear ones of TreeList. Every benchmark runs the queries
+ * of TreeData (in every borough for the borough query), which include short, common and
+ * unknown species names.
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+package nycstreettrees;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+//imported by name so that it is not taken for the Benchmark class of this package
+import org.openjdk.jmh.annotations.Benchmark;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+	/**
+	 * Counts the trees of the species matching every query in a TreeCollection
+	 *
+	 * @param data the dataset
+	 * @return total number of trees counted
+	 */
+	@Benchmark
+	public long treeCollectionCountBySpecies(TreeData data){
+		long total = 0;
+		for(String query : data.queries)
+			total += data.collection.getCountByTreeSpecies(query);
+		return total;
+	}
+
+	/**
+	 * Counts the trees of the species matching every query in a TreeList
+	 *
+	 * @param data the dataset
+	 * @return total number of trees counted
+	 */
+	@Benchmark
+	public long treeListCountBySpecies(TreeData data){
+		long total = 0;
+		for(String query : data.queries)
+			total += data.list.getCountByTreeSpecies(query);
+		return total;
+	}
+
+	/**
+	 * Lists the species matching every query in a TreeCollection
+	 *
+	 * @param data the dataset
+	 * @return total number of species listed
+	 */
+	@Benchmark
+	public long treeCollectionMatchingSpecies(TreeData data){
+		long total = 0;
+		for(String query : data.queries)
+			total += data.collection.getMatchingSpecies(query).size();
+		return total;
+	}
+
+	/**
+	 * Lists the species matching every query in a TreeList
+	 *
+	 * @param data the dataset
+	 * @return total number of species listed
+	 */
+	@Benchmark
+	public long treeListMatchingSpecies(TreeData data){
+		long total = 0;
+		for(String query : data.queries)
+			total += data.list.getMatchingSpecies(query).size();
+		return total;
+	}
+
+	/**
+	 * Counts the trees of the species matching every query in every borough in a
+	 * TreeCollection
+	 *
+	 * @param data the dataset
+	 * @return total number of trees counted
+	 */
+	@Benchmark
+	public long treeCollectionCountBySpeciesBorough(TreeData data){
+		long total = 0;
+		for(String query : data.queries){
+			for(String boro : data.boroughs)
+				total += data.collection.getCountByTreeSpeciesBorough(query, boro);
+		}
+		return total;
+	}
+
+	/**
+	 * Counts the trees of the species matching every query in every borough in a TreeList
+	 *
+	 * @param data the dataset
+	 * @return total number of trees counted
+	 */
+	@Benchmark
+	public long treeListCountBySpeciesBorough(TreeData data){
+		long total = 0;
+		for(String query : data.queries){
+			for(String boro : data.boroughs)
+				total += data.list.getCountByTreeSpeciesBorough(query, boro);
+		}
+		return total;
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * This class holds the JMH benchmarks of MyBST next to java.util.TreeMap: filling a new
+ * tree with every tree of the dataset, and looking every one of them up again. The
+ * insertion order of the dataset matters most here, since sorted input is the worst case
+ * of an unbalanced binary search tree.
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+package nycstreettrees;
+
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+//imported by name so that it is not taken for the Benchmark class of this package
+import org.openjdk.jmh.annotations.Benchmark;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchTreeBenchmark {
+
+	/**
+	 * Adds every tree of the dataset to a new MyBST
+	 *
+	 * @param data the dataset
+	 * @return the filled tree
+	 */
+	@Benchmark
+	public MyBST<Tree> myBSTAdd(TreeData data){
+		MyBST<Tree> fresh = new MyBST<Tree>();
+		for(Tree t : data.trees)
+			fresh.add(t);
+		return fresh;
+	}
+
+	/**
+	 * Puts every tree of the dataset in a new TreeMap
+	 *
+	 * @param data the dataset
+	 * @return the filled map
+	 */
+	@Benchmark
+	public TreeMap<Tree, Tree> treeMapPut(TreeData data){
+		TreeMap<Tree, Tree> fresh = new TreeMap<Tree, Tree>();
+		for(Tree t : data.trees)
+			fresh.put(t, t);
+		return fresh;
+	}
+
+	/**
+	 * Looks up every tree of the dataset in a MyBST holding them all
+	 *
+	 * @param data the dataset
+	 * @return number of trees found
+	 */
+	@Benchmark
+	public long myBSTContains(TreeData data){
+		long found = 0;
+		for(Tree t : data.probes){
+			if(data.bst.contains(t))
+				found++;
+		}
+		return found;
+	}
+
+	/**
+	 * Looks up every tree of the dataset in a TreeMap holding them all
+	 *
+	 * @param data the dataset
+	 * @return number of trees found
+	 */
+	@Benchmark
+	public long treeMapContainsKey(TreeData data){
+		long found = 0;
+		for(Tree t : data.probes){
+			if(data.map.containsKey(t))
+				found++;
+		}
+		return found;
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * This class is the JMH state shared by the benchmarks: trees generated by
+ * Benchmark.generateLines for one dataset size and insertion order, and the structures
+ * filled with them. It is set up once per combination of parameters, so that only the
+ * operation being measured runs inside a benchmark method.
+ *
+ * @author Leila Mardoum
+ * @version 4/22/17
+ */
+
+package nycstreettrees;
+
+import java.util.*;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+public class TreeData {
+
+	//number of trees in the dataset
+	@Param({"10000", "100000"})
+	public int size;
+
+	//order in which the trees are inserted: random, sorted, or reversed
+	@Param({"random", "sorted", "reversed"})
+	public String order;
+
+	//species names searched for and boroughs searched in by the query benchmarks
+	final String[] queries = Benchmark.QUERIES;
+	final String[] boroughs = Benchmark.BOROUGHS;
+
+	String[] lines;
+	List<Tree> trees;
+	//the trees in a different order from the one they were inserted in, to look them up
+	List<Tree> probes;
+	MyBST<Tree> bst;
+	TreeMap<Tree, Tree> map;
+	TreeCollection collection;
+	TreeList list;
+
+	/**
+	 * Generates the dataset and fills the structures with it
+	 */
+	@Setup(Level.Trial)
+	public void setUp(){
+		lines = Benchmark.generateLines(size, order);
+		trees = new ArrayList<Tree>(size);
+		for(String line : lines)
+			trees.add(TreeLoader.parseTree(line));
+
+		probes = new ArrayList<Tree>(trees);
+		Collections.shuffle(probes, new Random(size));
+
+		bst = new MyBST<Tree>();
+		map = new TreeMap<Tree, Tree>();
+		collection = new TreeCollection();
+		list = new TreeList();
+		for(Tree t : trees){
+			bst.add(t);
+			map.put(t, t);
+			collection.add(t);
+			list.add(t);
+		}
+	}
+}